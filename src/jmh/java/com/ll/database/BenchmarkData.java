@@ -0,0 +1,80 @@
+package com.ll.database;
+
+import org.h2.tools.SimpleResultSet;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+/**
+ * 벤치마크용 데이터 준비
+ * MySQL 대신 내장 H2(MySQL 모드)와 H2 의 SimpleResultSet 으로 만든 합성 결과를 쓴다.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static SimpleDb openArticleDb(String name, int rows) {
+        ConnectionManager connectionManager = new ConnectionManager(
+                "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1".formatted(name),
+                "sa", ""
+        );
+        SimpleDb simpleDb = new SimpleDb(connectionManager, new DevLogger(false));
+
+        simpleDb.run("DROP TABLE IF EXISTS article");
+        simpleDb.run("""
+                CREATE TABLE article (
+                    id BIGINT NOT NULL AUTO_INCREMENT,
+                    PRIMARY KEY(id),
+                    createdDate DATETIME NOT NULL,
+                    modifiedDate DATETIME NOT NULL,
+                    title VARCHAR(100) NOT NULL,
+                    `body` TEXT NOT NULL,
+                    isBlind BIT(1) NOT NULL DEFAULT 0
+                )
+                """);
+
+        if (rows == 0) return simpleDb;
+
+        Sql sql = simpleDb.genSql();
+        sql.append("INSERT INTO article SET createdDate = NOW(), modifiedDate = NOW(), title = ?, `body` = ?, isBlind = ?");
+        for (int no = 1; no <= rows; no++) {
+            sql.addBatch("제목%d".formatted(no), "내용%d".formatted(no), no % 2 == 0);
+        }
+        sql.executeBatch();
+        return simpleDb;
+    }
+
+    /**
+     * article 테이블과 같은 모양의 합성 결과, beforeFirst() 로 되감아 재사용한다.
+     */
+    static SimpleResultSet syntheticArticles(int rows) {
+        SimpleResultSet resultSet = new SyntheticResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("id", Types.BIGINT, 20, 0);
+        resultSet.addColumn("createdDate", Types.TIMESTAMP, 26, 0);
+        resultSet.addColumn("modifiedDate", Types.TIMESTAMP, 26, 0);
+        resultSet.addColumn("title", Types.VARCHAR, 100, 0);
+        resultSet.addColumn("body", Types.VARCHAR, 65535, 0);
+        resultSet.addColumn("isBlind", Types.BOOLEAN, 1, 0);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (long id = 1; id <= rows; id++) {
+            resultSet.addRow(id, now, now, "제목" + id, "내용" + id, id % 2 == 0);
+        }
+        return resultSet;
+    }
+
+    // SimpleResultSet 은 getObject(int, Class) 를 지원하지 않으므로 드라이버처럼 날짜 변환만 채운다.
+    private static class SyntheticResultSet extends SimpleResultSet {
+        @Override
+        public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+            if (type == LocalDateTime.class) {
+                Timestamp timestamp = getTimestamp(columnIndex);
+                return type.cast((timestamp != null) ? timestamp.toLocalDateTime() : null);
+            }
+            return type.cast(getObject(columnIndex));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ll.database;
+
+import com.ll.Entity.Article;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 내장 H2 를 대상으로 한 조회 전체 경로 (커넥션 대여, 문장 캐시, 실행, 변환)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    private static final Object[] IDS = {2L, 1L, 3L, 7L, 5L, 11L, 13L, 17L};
+
+    private SimpleDb simpleDb;
+    private Query findTitleById;
+
+    @Setup
+    public void setUp() {
+        simpleDb = BenchmarkData.openArticleDb("query", 100);
+        findTitleById = simpleDb.compile("SELECT title FROM article WHERE id = ?");
+    }
+
+    @TearDown
+    public void tearDown() {
+        simpleDb.close();
+    }
+
+    @Benchmark
+    public List<Article> selectRowsArticle() {
+        return simpleDb.genSql()
+                .append("SELECT * FROM article ORDER BY id ASC LIMIT 100")
+                .selectRows(Article.class);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> selectRows() {
+        return simpleDb.genSql()
+                .append("SELECT * FROM article ORDER BY id ASC LIMIT 100")
+                .selectRows();
+    }
+
+    @Benchmark
+    public List<Long> selectLongs() {
+        return simpleDb.genSql()
+                .append("SELECT id")
+                .append("FROM article")
+                .appendIn("WHERE id IN (?)", IDS)
+                .append("ORDER BY id ASC")
+                .selectLongs();
+    }
+
+    @Benchmark
+    public long[] selectLongArray() {
+        return simpleDb.genSql()
+                .append("SELECT id")
+                .append("FROM article")
+                .appendIn("WHERE id IN (?)", IDS)
+                .append("ORDER BY id ASC")
+                .selectLongArray();
+    }
+
+    @Benchmark
+    public String selectStringBuilt() {
+        return simpleDb.genSql()
+                .append("SELECT title")
+                .append("FROM article")
+                .append("WHERE id = ?", 7L)
+                .selectString();
+    }
+
+    @Benchmark
+    public String selectStringCompiled() {
+        return findTitleById.selectString(7L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ll.database;
+
+import com.ll.Entity.Article;
+import com.ll.standard.util.Ut;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿼리 실행을 빼고 ResultSet -> Map/엔티티 변환만 측정
+ * 한 번의 호출이 rows 개의 행을 변환한다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultMappingBenchmark {
+    @Param({"100"})
+    private int rows;
+
+    private SimpleResultSet resultSet;
+
+    @Setup
+    public void setUp() {
+        resultSet = BenchmarkData.syntheticArticles(rows);
+    }
+
+    @Benchmark
+    public void parseResultSetToMap(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(Sql.parseResultSetToMap(resultSet));
+        }
+    }
+
+    @Benchmark
+    public void sharedSchemaRow(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        ResultSchema schema = ResultSchema.of(resultSet.getMetaData());
+        while (resultSet.next()) {
+            blackhole.consume(schema.readRow(resultSet));
+        }
+    }
+
+    @Benchmark
+    public void entityMapper(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        RowMapper<Article> rowMapper = EntityMapper.of(Article.class).bind(resultSet.getMetaData());
+        while (resultSet.next()) {
+            blackhole.consume(rowMapper.map(resultSet));
+        }
+    }
+
+    // 이전 방식: 행마다 Map 을 만들고 Jackson 으로 변환
+    @Benchmark
+    public void jacksonMapper(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(Ut.mapper.mapToObj(Sql.parseResultSetToMap(resultSet), Article.class));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ll.database;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * genSql() 로 Sql 을 만들고 append/appendIn 으로 최종 SQL 을 조립하는 비용
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlBuildBenchmark {
+    private static final Object[] IDS = {2L, 1L, 3L, 7L, 5L, 11L, 13L, 17L};
+
+    private SimpleDb simpleDb;
+
+    @Setup
+    public void setUp() {
+        simpleDb = BenchmarkData.openArticleDb("sqlBuild", 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        simpleDb.close();
+    }
+
+    @Benchmark
+    public String append() {
+        return simpleDb.genSql()
+                .append("SELECT COUNT(*)")
+                .append("FROM article")
+                .append("WHERE id BETWEEN ? AND ?", 1, 3)
+                .append("AND title LIKE CONCAT('%', ? ,'%')", "제목")
+                .buildSql();
+    }
+
+    @Benchmark
+    public String appendIn() {
+        return simpleDb.genSql()
+                .append("SELECT id")
+                .append("FROM article")
+                .appendIn("WHERE id IN (?)", IDS)
+                .appendIn("ORDER BY FIELD (id, ?)", IDS)
+                .buildSql();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ll.database;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 쿼리를 가상 쓰레드에서 비동기로 실행
+ * 동시에 실행되는 작업 수는 풀의 최대 커넥션 수로 제한되며, 나머지는 가상 쓰레드에서 순서를 기다린다.
+ * 그래서 대기 작업이 많아도 커넥션 대여 시간 제한에 걸리지 않는다.
+ * 비동기 작업 안에서 다시 제출한 작업은 남은 허가가 있으면 따로 실행되고, 없으면 그 자리에서 바로 실행된다.
+ */
+class AsyncExecutor implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    // 비동기 작업 안에서 다시 나눠 띄운 작업(청크 조회, 병렬 스캔, 다음 페이지 미리 읽기)은 부모가 허가를 쥔 채 기다리므로
+    // 허가를 기다리지 않는다. 남은 허가가 있을 때만 따로 실행하고, 없으면 부모의 쓰레드와 허가로 실행해
+    // 서로를 기다리며 멈추거나 풀 크기를 넘지 않게 한다.
+    private final ThreadLocal<Boolean> holdingPermit = new ThreadLocal<>();
+
+    AsyncExecutor(int maxConcurrency) {
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> task) {
+        boolean nested = holdingPermit.get() != null;
+        // 호출한 쪽의 요청 기한을 작업에도 건다.
+        Deadline deadline = Deadline.current();
+        Supplier<T> work = (deadline != null) ? () -> deadline.call(task) : task;
+        if (nested) {
+            if (permits.tryAcquire()) {
+                return CompletableFuture.supplyAsync(() -> runHolding(work), executor);
+            }
+            try {
+                return CompletableFuture.completedFuture(work.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            return runHolding(work);
+        }, executor);
+    }
+
+    // 이미 얻은 허가로 실행하고 끝나면 돌려준다.
+    private <T> T runHolding(Supplier<T> work) {
+        holdingPermit.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            holdingPermit.remove();
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
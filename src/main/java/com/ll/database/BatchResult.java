@@ -0,0 +1,33 @@
+package com.ll.database;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Statement;
+
+/**
+ * 배치 실행 결과
+ * 행마다의 영향받은 row 수와 AUTO_INCREMENT 로 생성된 주키를 담는다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BatchResult {
+    // 파라미터 묶음마다의 결과, 드라이버가 문장을 합쳐 보내면 Statement.SUCCESS_NO_INFO 가 올 수 있다.
+    private final int[] updateCounts;
+    private final long[] generatedIds;
+
+    public int getBatchCount() {
+        return updateCounts.length;
+    }
+
+    /**
+     * 영향받은 전체 row 수, 개수를 알 수 없는 항목(SUCCESS_NO_INFO)은 1 로 센다.
+     */
+    public long getTotalUpdateCount() {
+        long total = 0;
+        for (int updateCount : updateCounts) {
+            total += (updateCount == Statement.SUCCESS_NO_INFO) ? 1 : Math.max(updateCount, 0);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ll.database;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * LOAD DATA 실행 결과
+ */
+@Getter
+@RequiredArgsConstructor
+public class BulkLoadResult {
+    // 보낸 행 수
+    private final long rowsSent;
+    // 서버가 넣은 행 수
+    private final long rowsLoaded;
+    // 잘림, 형 변환 실패 등 서버 경고 수
+    private final int warningCount;
+    // 경고 메시지, 앞의 일부만 담는다.
+    private final List<String> warnings;
+}
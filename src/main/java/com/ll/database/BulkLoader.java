@@ -0,0 +1,150 @@
+package com.ll.database;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * LOAD DATA LOCAL INFILE 로 행들을 한 번에 넣는다.
+ * 파일 대신 Connector/J 의 setLocalInfileInputStream 으로 인코딩 스트림을 넘긴다.
+ * 드라이버 속성 allowLoadLocalInfile=true (JdbcProfile.BULK_LOAD) 와 서버의 local_infile=ON 이 필요하다.
+ */
+final class BulkLoader {
+    private static final int MAX_WARNINGS = 100;
+    private static final String MYSQL_STATEMENT = "com.mysql.cj.jdbc.JdbcStatement";
+
+    private BulkLoader() {
+    }
+
+    static BulkLoadResult load(SimpleDb simpleDb, String table, List<String> columns, Iterator<Object[]> rows) {
+        if (columns.isEmpty()) throw new IllegalArgumentException("Bulk load requires at least one column.");
+
+        TransactionContext context = simpleDb.currentTransaction();
+        boolean borrowed = (context == null);
+        Connection connection = null;
+        String sql = null;
+        ExecutionTrace trace = ExecutionTrace.DISABLED;
+        LoadDataEncoder encoder = new LoadDataEncoder(rows, columns.size());
+        boolean streaming = false;
+        try {
+            connection = borrowed ? simpleDb.getConnectionManager().getConnection() : context.connection();
+            sql = loadSql(table, columns, bitColumns(connection, table));
+            trace = ExecutionTrace.begin(simpleDb, sql, new Object[0]);
+            trace.acquired();
+            simpleDb.getDevLogger().logQuery(sql);
+
+            try (Statement statement = connection.createStatement()) {
+                attachInputStream(statement, encoder);
+                trace.prepared();
+                streaming = true;
+                long loaded = statement.executeLargeUpdate(sql);
+                trace.executed();
+                trace.affected(loaded);
+                simpleDb.afterWrite(sql);
+                return collectResult(statement, encoder.rowCount(), loaded);
+            }
+        } catch (SQLException e) {
+            trace.failed(e);
+            // 전송 중에 실패하면 서버와 주고받던 단계를 알 수 없으므로 커넥션을 다시 쓰지 않는다.
+            if (streaming) PooledConnection.markBroken(connection);
+            else if (connection != null) PooledConnection.markBrokenIfFatal(connection, e);
+            RuntimeException rowFailure = encoder.failure();
+            if (rowFailure != null) {
+                rowFailure.addSuppressed(e);
+                throw rowFailure;
+            }
+            throw new RuntimeException("Error executing SQL: " + sql, e);
+        } catch (RuntimeException e) {
+            trace.failed(e);
+            if (streaming) PooledConnection.markBroken(connection);
+            throw e;
+        } finally {
+            if (borrowed && connection != null) closeQuietly(connection);
+            trace.finish();
+        }
+    }
+
+    // BIT 컬럼은 텍스트 '1' 을 그대로 넣으면 문자 코드가 들어가므로 변수로 받아 숫자로 바꾼다.
+    static String loadSql(String table, List<String> columns, Set<String> bitColumns) {
+        StringBuilder targets = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (i > 0) targets.append(", ");
+            if (bitColumns.contains(normalize(column))) {
+                String variable = "@simpledb_bit" + i;
+                targets.append(variable);
+                assignments.append(assignments.isEmpty() ? " SET " : ", ")
+                        .append(column).append(" = CAST(").append(variable).append(" AS UNSIGNED)");
+            } else {
+                targets.append(column);
+            }
+        }
+        return "LOAD DATA LOCAL INFILE 'simpledb-stream' INTO TABLE " + table
+                + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'"
+                + " LINES TERMINATED BY '\\n'"
+                + " (" + targets + ")" + assignments;
+    }
+
+    private static Set<String> bitColumns(Connection connection, String table) throws SQLException {
+        Set<String> bitColumns = new HashSet<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, normalize(table), "%")) {
+            while (columns.next()) {
+                if (columns.getInt("DATA_TYPE") == Types.BIT) bitColumns.add(normalize(columns.getString("COLUMN_NAME")));
+            }
+        }
+        return bitColumns;
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.replace("`", "").toLowerCase(Locale.ROOT);
+    }
+
+    // 드라이버 의존성은 runtimeOnly 이므로 리플렉션으로 호출한다.
+    private static void attachInputStream(Statement statement, InputStream inputStream) throws SQLException {
+        try {
+            Class<?> mysqlStatement = Class.forName(MYSQL_STATEMENT);
+            Object target = statement.unwrap(mysqlStatement);
+            mysqlStatement.getMethod("setLocalInfileInputStream", InputStream.class).invoke(target, inputStream);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new SQLFeatureNotSupportedException("Bulk load requires MySQL Connector/J", e);
+        } catch (IllegalAccessException e) {
+            throw new SQLException("Cannot attach bulk load stream", e);
+        } catch (InvocationTargetException e) {
+            throw new SQLException("Cannot attach bulk load stream", e.getCause());
+        }
+    }
+
+    private static BulkLoadResult collectResult(Statement statement, long sent, long loaded) throws SQLException {
+        int warningCount = 0;
+        List<String> warnings = new ArrayList<>();
+        for (SQLWarning warning = statement.getWarnings(); warning != null; warning = warning.getNextWarning()) {
+            warningCount++;
+            if (warnings.size() < MAX_WARNINGS) warnings.add(warning.getMessage());
+        }
+        return new BulkLoadResult(sent, loaded, warningCount, warnings);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 풀 반납 실패는 풀이 커넥션을 폐기하는 것으로 처리된다.
+        }
+    }
+}
@@ -1,28 +1,56 @@
 package com.ll.database;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
 
 /**
  * DB 연결 관리
+ * 커넥션은 내부 풀에서 빌려주며, 빌린 커넥션의 close() 는 풀 반납이다.
  */
 @Getter
-@RequiredArgsConstructor
-public class ConnectionManager {
+public class ConnectionManager implements AutoCloseable {
     private final String url;
     private final String user;
     private final String password;
+    // URL 밖에서 드라이버에 넘기는 속성 (user, password 제외)
+    private final Map<String, String> driverProperties;
+    private final ConnectionPool pool;
+
+    public ConnectionManager(String url, String user, String password) {
+        this(url, user, password, PoolConfig.defaults());
+    }
+
+    public ConnectionManager(String url, String user, String password, PoolConfig poolConfig) {
+        this(url, user, password, Map.of(), poolConfig);
+    }
+
+    public ConnectionManager(String url, String user, String password, Map<String, String> driverProperties, PoolConfig poolConfig) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.driverProperties = Map.copyOf(driverProperties);
+        this.pool = new ConnectionPool(this::openPhysicalConnection, poolConfig);
+    }
 
     public Connection getConnection() {
-        try {
-            System.out.println("[DEBUG] Establishing connection to database: " + url);
-            return DriverManager.getConnection(url, user, password);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error while connecting to database", e);
-        }
+        return pool.borrow();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
+        Properties properties = new Properties();
+        properties.putAll(driverProperties);
+        if (user != null) properties.setProperty("user", user);
+        if (password != null) properties.setProperty("password", password);
+        return DriverManager.getConnection(url, properties);
     }
-}
\ No newline at end of file
+}
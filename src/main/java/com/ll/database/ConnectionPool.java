@@ -0,0 +1,191 @@
+package com.ll.database;
+
+import lombok.Getter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 크기가 제한된 커넥션 풀
+ * 대여 시 유효성 검사, 유휴 커넥션 정리, 최대 수명, 대여 대기 시간 제한을 지원한다.
+ */
+public class ConnectionPool implements AutoCloseable {
+    // 최근에 쓰인 커넥션은 isValid 왕복을 생략한다.
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * 물리 커넥션을 새로 여는 방법
+     */
+    @FunctionalInterface
+    interface Connector {
+        Connection connect() throws SQLException;
+    }
+
+    @Getter
+    private final PoolConfig config;
+    private final Connector connector;
+    // 가장 최근에 반납된 커넥션을 먼저 빌려준다. (LIFO)
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    @Getter
+    private final StatementCacheStats statementCacheStats = new StatementCacheStats();
+    private volatile boolean closed;
+
+    ConnectionPool(Connector connector, PoolConfig config) {
+        if (config.getMaxSize() <= 0 || config.getMinSize() < 0 || config.getMinSize() > config.getMaxSize()) {
+            throw new IllegalArgumentException("Invalid pool size: " + config);
+        }
+        this.connector = connector;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simpledb-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getEvictionInterval().toMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 커넥션을 빌린다. 반납은 돌려받은 커넥션의 close() 로 한다.
+     */
+    public Connection borrow() {
+        if (closed) throw new IllegalStateException("Connection pool is closed");
+
+        acquirePermit();
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) return pooled.lease();
+                destroy(pooled);
+            }
+            return create().lease();
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        try {
+            if (closed || pooled.isBroken() || isExpired(pooled)) {
+                destroy(pooled);
+                return;
+            }
+            pooled.reset();
+            idle.offerFirst(pooled);
+            if (closed && idle.remove(pooled)) destroy(pooled);
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return Math.max(0, total.get() - idle.size());
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private void acquirePermit() {
+        Duration timeout = config.getBorrowTimeout();
+        try {
+            if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new RuntimeException("Timed out after %dms waiting for a connection (active %d, max %d)"
+                        .formatted(timeout.toMillis(), getActiveCount(), config.getMaxSize()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private PooledConnection create() {
+        total.incrementAndGet();
+        try {
+            return new PooledConnection(this, connector.connect());
+        } catch (SQLException e) {
+            total.decrementAndGet();
+            throw new RuntimeException("Error while connecting to database", e);
+        } catch (RuntimeException | Error e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (isExpired(pooled)) return false;
+        if (System.nanoTime() - pooled.lastUsedAt() < VALIDATION_BYPASS_NANOS) return true;
+
+        int timeoutSeconds = (int) Math.max(1, config.getValidationTimeout().toSeconds());
+        try {
+            return pooled.physical().isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled) {
+        return System.nanoTime() - pooled.createdAt() >= config.getMaxLifetime().toNanos();
+    }
+
+    private boolean isIdleTooLong(PooledConnection pooled) {
+        return System.nanoTime() - pooled.lastUsedAt() >= config.getIdleTimeout().toNanos();
+    }
+
+    private void destroy(PooledConnection pooled) {
+        total.decrementAndGet();
+        pooled.closePhysical();
+    }
+
+    // 오래된 유휴 커넥션을 정리하고 최소 크기까지 다시 채운다.
+    private void housekeep() {
+        List<PooledConnection> snapshot = new ArrayList<>(idle);
+        for (PooledConnection pooled : snapshot) {
+            boolean evict = isExpired(pooled)
+                    || (isIdleTooLong(pooled) && total.get() > config.getMinSize());
+            if (evict && idle.remove(pooled)) destroy(pooled);
+        }
+
+        try {
+            while (!closed && total.get() < config.getMinSize()) {
+                idle.offerLast(create());
+            }
+        } catch (RuntimeException e) {
+            // DB 가 잠시 내려가 있어도 다음 주기에 다시 시도한다.
+        }
+    }
+}
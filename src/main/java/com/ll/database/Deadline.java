@@ -0,0 +1,63 @@
+package com.ll.database;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 요청 하나에 주어진 시간 예산
+ * call() 안에서 실행되는 쿼리는 남은 시간만큼만 실행되며, 비동기 쿼리에도 이어진다.
+ * 바깥에 이미 더 이른 기한이 있으면 그쪽을 따른다.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * 지금부터 budget 안에 work 를 끝내야 하는 기한을 걸고 실행한다.
+     */
+    public static <T> T within(Duration budget, Supplier<T> work) {
+        return after(budget).call(work);
+    }
+
+    // 현재 쓰레드에 걸린 기한, 없으면 null
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public <T> T call(Supplier<T> work) {
+        Deadline outer = CURRENT.get();
+        CURRENT.set((outer != null && outer.deadlineNanos - deadlineNanos < 0) ? outer : this);
+        try {
+            return work.get();
+        } finally {
+            if (outer != null) CURRENT.set(outer);
+            else CURRENT.remove();
+        }
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remaining=%dms}".formatted(remaining().toMillis());
+    }
+}
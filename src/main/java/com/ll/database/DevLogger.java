@@ -1,33 +1,62 @@
 package com.ll.database;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
-import java.util.Arrays;
-
 /**
  * 개발자 모드에서 쿼리 실행 정보를 출력하는 로그 관리
+ * 출력은 QueryLog 의 백그라운드 쓰레드가 하므로 쿼리 쓰레드는 System.out 을 기다리지 않는다.
+ * 개발자 모드가 꺼져 있으면 아무것도 만들지 않는다.
  */
 @Getter
 @Setter
-public class DevLogger {
-    private boolean devMode;
+public class DevLogger implements AutoCloseable {
+    private volatile boolean devMode;
+    // 처음 로그를 남길 때 기본 설정으로 만든다.
+    @Getter(AccessLevel.NONE)
+    private volatile QueryLog queryLog;
 
     public DevLogger(boolean devMode) {
         this.devMode = devMode;
     }
 
+    public DevLogger(boolean devMode, QueryLog queryLog) {
+        this.devMode = devMode;
+        this.queryLog = queryLog;
+    }
+
     public void logQuery(String query, Object... params) {
         if (devMode) {
-            System.out.println("[DEV MODE] Query: " + query);
-            System.out.println("[DEV MODE] Parameters: " + Arrays.toString(params));
+            getQueryLog().logQuery(query, params);
         }
     }
 
     public void logResult(Object result) {
         if (devMode) {
-            System.out.println("[DEV MODE] Result: " + result);
+            getQueryLog().logResult(result);
         }
     }
-}
\ No newline at end of file
+
+    public void logEvent(String message) {
+        if (devMode) {
+            getQueryLog().logEvent(message);
+        }
+    }
+
+    public QueryLog getQueryLog() {
+        QueryLog log = queryLog;
+        if (log != null) return log;
+        synchronized (this) {
+            if (queryLog == null) queryLog = new QueryLog(QueryLogConfig.defaults());
+            return queryLog;
+        }
+    }
+
+    // 남은 로그를 모두 기록하고 기록 쓰레드를 멈춘다.
+    @Override
+    public void close() {
+        QueryLog log = queryLog;
+        if (log != null) log.close();
+    }
+}
@@ -0,0 +1,240 @@
+package com.ll.database;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * (엔티티 클래스, id) 를 키로 하는 엔티티 캐시
+ * register() 한 클래스를 SELECT * FROM 테이블 WHERE id = ? 로 selectRow 하면 트랜잭션 밖에서는 캐시에서 읽고,
+ * 없으면 DB 에서 읽어 채운다. 같은 테이블에 대한 UPDATE/DELETE ... WHERE id = ? 는 그 id 만,
+ * 그 밖의 쓰기는 해당 클래스 전체를 무효화한다. (트랜잭션 안이면 커밋할 때)
+ * 락 경합을 줄이려고 키 해시로 나눈 구획마다 따로 LRU 를 둔다.
+ * 캐시된 엔티티는 여러 쓰레드가 같은 객체를 돌려받으므로 읽기 전용으로 다뤄야 한다.
+ */
+public class EntityCache {
+    record Key(Class<?> type, Object id) {
+    }
+
+    private record Registration(Class<?> type, String table, Pattern selectById, Pattern writeById) {
+    }
+
+    // 한 구획, 자기 자신을 락으로 쓴다.
+    private static final class Stripe {
+        private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+        // 무효화마다 올라가는 버전, 읽는 도중 무효화가 끼어들면 그 결과는 넣지 않는다.
+        private long version;
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeCapacity;
+    private final Map<Class<?>, Registration> registrations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public EntityCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Cache size must be positive.");
+        int stripeCount = Math.min(
+                Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1,
+                Integer.highestOneBit(maxSize));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeCapacity = (maxSize + stripeCount - 1) / stripeCount;
+    }
+
+    /**
+     * 주키가 id 인 엔티티 클래스를 캐시 대상으로 등록한다.
+     */
+    public EntityCache register(Class<?> type, String table) {
+        return register(type, table, "id");
+    }
+
+    public EntityCache register(Class<?> type, String table, String idColumn) {
+        String tableName = Pattern.quote(table);
+        String idName = Pattern.quote(idColumn);
+        Pattern selectById = Pattern.compile(
+                "(?is)SELECT\\s+\\*\\s+FROM\\s+`?" + tableName + "`?\\s+WHERE\\s+`?" + idName + "`?\\s*=\\s*(\\?|\\d+)\\s*");
+        Pattern writeById = Pattern.compile(
+                "(?is)(?:UPDATE\\s+`?" + tableName + "`?\\s+SET\\s+.+?|DELETE\\s+FROM\\s+`?" + tableName + "`?)"
+                        + "\\s+WHERE\\s+`?" + idName + "`?\\s*=\\s*(\\?|\\d+)\\s*");
+        registrations.put(type, new Registration(type, table.toLowerCase(Locale.ROOT), selectById, writeById));
+        return this;
+    }
+
+    /**
+     * 캐시할 수 있는 id 조회면 키를, 아니면 null 을 돌려준다.
+     */
+    Key keyOf(Class<?> type, String sql, Object[] params) {
+        Registration registration = registrations.get(type);
+        if (registration == null) return null;
+        Matcher matcher = registration.selectById().matcher(sql);
+        if (!matcher.matches()) return null;
+        Object id = idOf(matcher, params);
+        return (id != null) ? new Key(type, id) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(Key key, Supplier<T> loader) {
+        Stripe stripe = stripeOf(key);
+        long version;
+        synchronized (stripe) {
+            Object cached = stripe.entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return (T) cached;
+            }
+            version = stripe.version;
+        }
+        misses.increment();
+
+        T loaded = loader.get();
+        synchronized (stripe) {
+            if (stripe.version != version) return loaded;
+            stripe.entries.put(key, loaded);
+            if (stripe.entries.size() > stripeCapacity) {
+                Map.Entry<Key, Object> eldest = stripe.entries.entrySet().iterator().next();
+                stripe.entries.remove(eldest.getKey());
+                evictions.increment();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 쓰기 문장이 건드린 엔티티를 무효화하는 작업을 돌려준다. 캐시 대상 테이블이 아니면 null
+     */
+    Runnable invalidationFor(String sql, Object[] params) {
+        Set<String> tables = null;
+        List<Runnable> actions = new ArrayList<>();
+        for (Registration registration : registrations.values()) {
+            Matcher matcher = registration.writeById().matcher(sql);
+            Object id = matcher.matches() ? idOf(matcher, params) : null;
+            if (id != null) {
+                Key key = new Key(registration.type(), id);
+                actions.add(() -> invalidate(key));
+                continue;
+            }
+            if (tables == null) tables = SqlTables.of(sql);
+            if (!tables.contains(registration.table())) continue;
+            // 새 행을 넣기만 하는 INSERT 는 캐시된 엔티티를 바꾸지 않는다.
+            if (isPlainInsert(sql)) continue;
+            Class<?> type = registration.type();
+            actions.add(() -> invalidateAll(type));
+        }
+        if (actions.isEmpty()) return null;
+        return (actions.size() == 1) ? actions.get(0) : () -> actions.forEach(Runnable::run);
+    }
+
+    public void invalidate(Class<?> type, Object id) {
+        invalidate(new Key(type, normalizeId(id)));
+    }
+
+    public void invalidateAll(Class<?> type) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.version++;
+                Iterator<Key> keys = stripe.entries.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (keys.next().type() != type) continue;
+                    keys.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.version++;
+                stripe.entries.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return (total == 0) ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache{size=%d, hits=%d, misses=%d, evictions=%d, invalidations=%d}"
+                .formatted(size(), getHits(), getMisses(), getEvictions(), getInvalidations());
+    }
+
+    private void invalidate(Key key) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.version++;
+            if (stripe.entries.remove(key) != null) invalidations.increment();
+        }
+    }
+
+    private Stripe stripeOf(Key key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    // 조건의 id 는 마지막 파라미터이거나 숫자 리터럴이다. 알 수 없으면(배치 실행 등) null
+    private static Object idOf(Matcher matcher, Object[] params) {
+        String literal = matcher.group(1);
+        if (!literal.equals("?")) return Long.parseLong(literal);
+        if (params == null || params.length == 0) return null;
+        return normalizeId(params[params.length - 1]);
+    }
+
+    // 1, 1L 처럼 타입만 다른 숫자 id 를 같은 키로 본다.
+    private static Object normalizeId(Object id) {
+        if (id instanceof Integer || id instanceof Long || id instanceof Short || id instanceof Byte) {
+            return ((Number) id).longValue();
+        }
+        return id;
+    }
+
+    private static boolean isPlainInsert(String sql) {
+        String upper = sql.stripLeading().toUpperCase(Locale.ROOT);
+        return upper.startsWith("INSERT") && !upper.contains("ON DUPLICATE");
+    }
+}
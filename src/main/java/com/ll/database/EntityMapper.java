@@ -0,0 +1,346 @@
+package com.ll.database;
+
+import com.ll.standard.util.Ut;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 엔티티 클래스별로 한 번 만들어 두는 ResultSet -> 엔티티 변환기
+ * 필드 setter 를 MethodHandle 로 미리 찾아두고, 결과 컬럼 구성마다 인덱스 기반 RowMapper 를 만들어 재사용한다.
+ * 행마다 Map 이나 Jackson 변환을 거치지 않으므로 엔티티 객체 외의 할당이 거의 없다.
+ */
+public final class EntityMapper<T> {
+    private static final ClassValue<EntityMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected EntityMapper<?> computeValue(Class<?> type) {
+            return new EntityMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    // 기본 생성자가 없으면 null, 이때는 Jackson 변환으로 대신한다.
+    private final MethodHandle constructor;
+    private final Map<String, Field> fieldsByName = new HashMap<>();
+    // 컬럼 라벨 구성 -> 인덱스 기반 변환기
+    private final Map<String, RowMapper<T>> boundMappers = new ConcurrentHashMap<>();
+
+    private EntityMapper(Class<T> type) {
+        this.type = type;
+        this.constructor = findConstructor(type);
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) continue;
+                registerField(field);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMapper<T> of(Class<T> type) {
+        return (EntityMapper<T>) MAPPERS.get(type);
+    }
+
+    /**
+     * 결과 컬럼 구성에 맞는 RowMapper 를 돌려준다. 같은 구성이면 캐시된 것을 쓴다.
+     */
+    public RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            signature.append(labels[i]).append('\u0000');
+        }
+
+        RowMapper<T> mapper = boundMappers.get(signature.toString());
+        if (mapper == null) {
+            mapper = compile(labels);
+            boundMappers.putIfAbsent(signature.toString(), mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * 첫 행에서 컬럼 구성을 확인해 bind 하는 RowMapper, 결과 집합 하나에만 쓴다.
+     */
+    public RowMapper<T> rowMapper() {
+        return new RowMapper<>() {
+            private RowMapper<T> bound;
+
+            @Override
+            public T map(ResultSet resultSet) throws SQLException {
+                if (bound == null) bound = bind(resultSet.getMetaData());
+                return bound.map(resultSet);
+            }
+        };
+    }
+
+    /**
+     * 컬럼에 대응하는 필드를 읽는 (Object)Object 형태의 getter, 엔티티를 행으로 바꿀 때 쓴다.
+     */
+    MethodHandle getterOf(String column) {
+        Field field = findField(column);
+        if (field == null) {
+            throw new IllegalArgumentException("Unrecognized column \"%s\" for %s".formatted(column, type.getName()));
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            return lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access field " + field, e);
+        }
+    }
+
+    private RowMapper<T> compile(String[] labels) {
+        if (constructor == null) {
+            // 기본 생성자가 없는 클래스는 기존처럼 Map 을 거쳐 Jackson 으로 만든다.
+            return resultSet -> Ut.mapper.mapToObj(Sql.parseResultSetToMap(resultSet), type);
+        }
+
+        ColumnReader[] readers = new ColumnReader[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            Field field = findField(labels[i]);
+            if (field == null) {
+                throw new IllegalArgumentException("Unrecognized column \"%s\" for %s".formatted(labels[i], type.getName()));
+            }
+            readers[i] = ColumnReader.of(field, setterOf(field), i + 1);
+        }
+
+        MethodHandle newInstance = constructor;
+        return resultSet -> {
+            T entity;
+            try {
+                entity = (T) (Object) newInstance.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+            }
+            for (ColumnReader reader : readers) {
+                reader.read(resultSet, entity);
+            }
+            return entity;
+        };
+    }
+
+    private void registerField(Field field) {
+        String name = field.getName();
+        fieldsByName.putIfAbsent(name, field);
+        fieldsByName.putIfAbsent(normalize(name), field);
+        // boolean isBlind 는 blind 컬럼으로도 찾을 수 있게 한다.
+        if ((field.getType() == boolean.class || field.getType() == Boolean.class)
+                && name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2))) {
+            fieldsByName.putIfAbsent(normalize(name.substring(2)), field);
+        }
+    }
+
+    // 정확히 같은 이름을 먼저 찾고, 없으면 대소문자와 '_' 를 무시하고 찾는다.
+    private Field findField(String label) {
+        Field field = fieldsByName.get(label);
+        return (field != null) ? field : fieldsByName.get(normalize(label));
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            return lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle setterOf(Field field) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            return lookup.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, field.getType()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access field " + field, e);
+        }
+    }
+
+    /**
+     * 컬럼 하나를 인덱스로 읽어 필드에 넣는다.
+     * 기본형 필드는 타입에 맞는 getter 와 invokeExact 로 박싱 없이 넣는다.
+     */
+    private interface ColumnReader {
+        void read(ResultSet resultSet, Object target) throws SQLException;
+
+        static ColumnReader of(Field field, MethodHandle setter, int index) {
+            Class<?> fieldType = field.getType();
+
+            if (fieldType == long.class) {
+                return (rs, target) -> {
+                    long value = rs.getLong(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == int.class) {
+                return (rs, target) -> {
+                    int value = rs.getInt(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == boolean.class) {
+                // BIT(1) 컬럼도 getBoolean 으로 읽힌다.
+                return (rs, target) -> {
+                    boolean value = rs.getBoolean(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == double.class) {
+                return (rs, target) -> {
+                    double value = rs.getDouble(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == float.class) {
+                return (rs, target) -> {
+                    float value = rs.getFloat(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == short.class) {
+                return (rs, target) -> {
+                    short value = rs.getShort(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == byte.class) {
+                return (rs, target) -> {
+                    byte value = rs.getByte(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == String.class) {
+                return (rs, target) -> {
+                    String value = rs.getString(index);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == LocalDateTime.class) {
+                // Timestamp 를 거치지 않고 바로 LocalDateTime 으로 읽는다.
+                return (rs, target) -> {
+                    LocalDateTime value = rs.getObject(index, LocalDateTime.class);
+                    try {
+                        setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == Long.class) {
+                return (rs, target) -> {
+                    long value = rs.getLong(index);
+                    Long boxed = rs.wasNull() ? null : value;
+                    try {
+                        setter.invokeExact(target, boxed);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == Integer.class) {
+                return (rs, target) -> {
+                    int value = rs.getInt(index);
+                    Integer boxed = rs.wasNull() ? null : value;
+                    try {
+                        setter.invokeExact(target, boxed);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType == Boolean.class) {
+                return (rs, target) -> {
+                    boolean value = rs.getBoolean(index);
+                    Boolean boxed = rs.wasNull() ? null : value;
+                    try {
+                        setter.invokeExact(target, boxed);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+            if (fieldType.isEnum()) {
+                return (rs, target) -> {
+                    String name = rs.getString(index);
+                    Object value = (name != null) ? enumValue(fieldType, name) : null;
+                    try {
+                        setter.invoke(target, value);
+                    } catch (Throwable e) {
+                        throw setterFailure(field, e);
+                    }
+                };
+            }
+
+            // 그 밖의 타입(LocalDate, BigDecimal 등)은 드라이버의 타입 변환에 맡긴다.
+            return (rs, target) -> {
+                Object value = rs.getObject(index, fieldType);
+                try {
+                    setter.invoke(target, value);
+                } catch (Throwable e) {
+                    throw setterFailure(field, e);
+                }
+            };
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object enumValue(Class<?> enumType, String name) {
+            return Enum.valueOf((Class<? extends Enum>) enumType, name);
+        }
+
+        private static RuntimeException setterFailure(Field field, Throwable e) {
+            if (e instanceof RuntimeException runtimeException) return runtimeException;
+            return new IllegalStateException("Cannot set field " + field, e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.ll.database;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 문장 한 번의 실행 기록
+ * 커넥션 대여, prepare, execute, fetch(행 읽기와 변환) 구간의 시간과 행 수, 오류를 모은다.
+ * 받을 리스너가 없으면 공유 DISABLED 인스턴스를 쓰며 시간 측정도 하지 않는다.
+ */
+class ExecutionTrace {
+    static final ExecutionTrace DISABLED = new ExecutionTrace(List.of(), null, null);
+
+    private final List<QueryListener> listeners;
+    private final String sql;
+    private final Object[] params;
+    private final long startedAt;
+    private long lastMark;
+
+    private long acquireNanos;
+    private long prepareNanos;
+    private long executeNanos;
+    private long fetchNanos;
+    private long rowsReturned;
+    private long rowsAffected;
+    private Throwable error;
+
+    private ExecutionTrace(List<QueryListener> listeners, String sql, Object[] params) {
+        this.listeners = listeners;
+        this.sql = sql;
+        this.params = params;
+        this.startedAt = listeners.isEmpty() ? 0 : System.nanoTime();
+        this.lastMark = startedAt;
+    }
+
+    static ExecutionTrace begin(SimpleDb simpleDb, String sql, Object[] params) {
+        if (simpleDb == null) return DISABLED;
+        List<QueryListener> listeners = simpleDb.activeQueryListeners();
+        return listeners.isEmpty() ? DISABLED : new ExecutionTrace(listeners, sql, params);
+    }
+
+    boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    void acquired() {
+        if (this == DISABLED) return;
+        acquireNanos += lap();
+    }
+
+    void prepared() {
+        if (this == DISABLED) return;
+        prepareNanos += lap();
+    }
+
+    void executed() {
+        if (this == DISABLED) return;
+        executeNanos += lap();
+    }
+
+    void fetched(Object result) {
+        if (this == DISABLED) return;
+        fetchNanos += lap();
+        rowsReturned += switch (result) {
+            case null -> 0;
+            case Collection<?> rows -> rows.size();
+            case long[] values -> values.length;
+            case int[] values -> values.length;
+            case double[] values -> values.length;
+            default -> 1;
+        };
+    }
+
+    void fetchedRows(long rows) {
+        if (this == DISABLED) return;
+        fetchNanos += lap();
+        rowsReturned += rows;
+    }
+
+    void affected(long rows) {
+        if (this == DISABLED) return;
+        rowsAffected += rows;
+    }
+
+    void failed(Throwable error) {
+        if (this == DISABLED) return;
+        this.error = error;
+    }
+
+    void finish() {
+        if (this == DISABLED) return;
+        for (QueryListener listener : listeners) {
+            listener.onExecution(this);
+        }
+    }
+
+    private long lap() {
+        long now = System.nanoTime();
+        long elapsed = now - lastMark;
+        lastMark = now;
+        return elapsed;
+    }
+
+    String sql() {
+        return sql;
+    }
+
+    Object[] params() {
+        return params;
+    }
+
+    long totalNanos() {
+        return lastMark - startedAt;
+    }
+
+    long acquireNanos() {
+        return acquireNanos;
+    }
+
+    long prepareNanos() {
+        return prepareNanos;
+    }
+
+    long executeNanos() {
+        return executeNanos;
+    }
+
+    long fetchNanos() {
+        return fetchNanos;
+    }
+
+    long rowsReturned() {
+        return rowsReturned;
+    }
+
+    long rowsAffected() {
+        return rowsAffected;
+    }
+
+    Throwable error() {
+        return error;
+    }
+}
@@ -0,0 +1,299 @@
+package com.ll.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 한 테이블에 대한 단건 INSERT 를 모아 여러 행 INSERT 한 번과 커밋 한 번으로 쓰는 쓰기 지연 기록기
+ * 제출한 쓰레드는 커밋이 끝나면 생성된 id 로 완료되는 future 를 받는다.
+ * 호출한 쪽의 트랜잭션과는 무관하게 자체 커넥션에서 커밋된다.
+ */
+public class InsertCoalescer implements AutoCloseable {
+    private record Pending(Object[] values, CompletableFuture<Long> future) {
+    }
+
+    private final SimpleDb simpleDb;
+    private final String table;
+    private final List<String> columns;
+    private final InsertCoalescerConfig config;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private volatile boolean closed;
+
+    InsertCoalescer(SimpleDb simpleDb, String table, List<String> columns, InsertCoalescerConfig config) {
+        if (columns.isEmpty()) throw new IllegalArgumentException("Insert coalescer requires at least one column.");
+        if (config.getMaxBatchRows() <= 0 || config.getQueueCapacity() <= 0) {
+            throw new IllegalArgumentException("Invalid insert coalescer config: " + config);
+        }
+        this.simpleDb = simpleDb;
+        this.table = table;
+        this.columns = List.copyOf(columns);
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.flusher = new Thread(this::flushLoop, "simpledb-insert-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * columns 순서의 값으로 한 행을 넣는다. future 는 행이 커밋되면 생성된 id 로 완료된다.
+     */
+    public CompletableFuture<Long> submit(Object... values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected %d values but got %d".formatted(columns.size(), values.length));
+        }
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("Insert coalescer is closed"));
+            return future;
+        }
+        Pending pending = new Pending(values.clone(), future);
+        try {
+            if (!queue.offer(pending, config.getSubmitTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                future.completeExceptionally(new RejectedExecutionException(
+                        "Insert queue is full (%d rows pending)".formatted(queue.size())));
+                return future;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+        // 넣는 사이에 닫혔으면 마지막 drain 뒤일 수 있다. 아직 큐에 남아 있으면 직접 거절한다.
+        if (closed && queue.remove(pending)) {
+            future.completeExceptionally(new RejectedExecutionException("Insert coalescer is closed"));
+            return future;
+        }
+        submitted.increment();
+        return future;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    // 커밋 횟수, getWritten() / getFlushes() 가 평균 묶음 크기다.
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * 새 제출을 막고 대기 중인 행을 모두 쓴 뒤 끝낸다.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        flusher.interrupt();
+        try {
+            flusher.join();
+            // 닫히기 직전에 들어와 flusher 의 마지막 drain 을 놓친 행은 거절한다.
+            rejectRemaining();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        simpleDb.insertCoalescerClosed(this);
+    }
+
+    private void rejectRemaining() {
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Pending pending : remaining) {
+            pending.future().completeExceptionally(new RejectedExecutionException("Insert coalescer is closed"));
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(config.getMaxBatchRows());
+        while (true) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) break;
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                // close() 가 깨운 경우, 남은 행은 아래에서 마저 쓴다.
+                if (closed) break;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+
+        Thread.interrupted();
+        queue.drainTo(batch);
+        for (int from = 0; from < batch.size(); from += config.getMaxBatchRows()) {
+            flush(batch.subList(from, Math.min(batch.size(), from + config.getMaxBatchRows())));
+        }
+    }
+
+    // 첫 행부터 maxDelay 가 지나거나 maxBatchRows 가 찰 때까지 더 모은다.
+    private void collect(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + config.getMaxDelay().toNanos();
+        while (batch.size() < config.getMaxBatchRows()) {
+            if (queue.drainTo(batch, config.getMaxBatchRows() - batch.size()) > 0) continue;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return;
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        try {
+            long[] ids = insertGroup(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(ids[i]);
+            }
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1 || !isRowError(e)) {
+                // 커넥션, 시간 제한 같은 오류는 행마다 다시 넣어도 똑같이 실패하므로 묶음 전체를 한 번에 실패시킨다.
+                failed.add(batch.size());
+                for (Pending pending : batch) {
+                    pending.future().completeExceptionally(e);
+                }
+                return;
+            }
+            // 한 행의 값 때문에 묶음 전체가 실패하지 않도록 행마다 다시 넣어 본다.
+            for (Pending pending : batch) {
+                flush(List.of(pending));
+            }
+        }
+    }
+
+    // 특정 행의 값 때문에 난 오류인지, 제약 조건 위반(23)과 데이터 오류(22)만 해당한다.
+    private static boolean isRowError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException || cause instanceof SQLDataException) return true;
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                String state = sqlException.getSQLState();
+                return state.startsWith("22") || state.startsWith("23");
+            }
+        }
+        return false;
+    }
+
+    private long[] insertGroup(List<Pending> batch) {
+        String sql = insertSql(batch.size());
+        Object[] params = new Object[batch.size() * columns.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            System.arraycopy(batch.get(i).values(), 0, params, i * columns.size(), columns.size());
+        }
+        simpleDb.getDevLogger().logQuery(sql, params);
+
+        ExecutionTrace trace = ExecutionTrace.begin(simpleDb, sql, params);
+        Connection connection = null;
+        PreparedStatement statement = null;
+        boolean statementFailed = false;
+        try {
+            connection = simpleDb.getConnectionManager().getConnection();
+            trace.acquired();
+            connection.setAutoCommit(false);
+            statement = StatementCache.prepare(connection, sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            trace.prepared();
+
+            statement.executeUpdate();
+            long[] ids = new long[batch.size()];
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                for (int i = 0; i < ids.length; i++) {
+                    if (!keys.next()) throw new SQLException("Expected %d generated keys but got %d".formatted(ids.length, i));
+                    ids[i] = keys.getLong(1);
+                }
+            }
+            connection.commit();
+            trace.executed();
+            trace.affected(batch.size());
+            flushes.increment();
+            simpleDb.afterWrite(sql);
+            return ids;
+        } catch (SQLException e) {
+            statementFailed = true;
+            trace.failed(e);
+            rollbackQuietly(connection);
+            PooledConnection.markBrokenIfFatal(connection, e);
+            throw new RuntimeException("Error executing SQL: " + sql, e);
+        } catch (RuntimeException e) {
+            statementFailed = true;
+            trace.failed(e);
+            rollbackQuietly(connection);
+            throw e;
+        } finally {
+            if (statement != null) {
+                StatementCache.release(connection, sql, Statement.RETURN_GENERATED_KEYS, statement, statementFailed);
+            }
+            if (connection != null) closeQuietly(connection);
+            trace.finish();
+        }
+    }
+
+    private String insertSql(int rows) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            row.append(i == 0 ? "?" : ", ?");
+        }
+        row.append(')');
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        if (connection == null) return;
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // 반납할 때 풀이 다시 되돌린다.
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 풀 반납 실패는 풀이 커넥션을 폐기하는 것으로 처리된다.
+        }
+    }
+}
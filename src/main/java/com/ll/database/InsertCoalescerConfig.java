@@ -0,0 +1,35 @@
+package com.ll.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * 단건 INSERT 를 모아 한 번에 커밋하는 쓰기 지연 설정
+ */
+@Getter
+@Builder
+@ToString
+public class InsertCoalescerConfig {
+    // 여러 행 INSERT 하나에 담을 최대 행 수
+    @Builder.Default
+    private final int maxBatchRows = 500;
+
+    // 첫 행이 들어온 뒤 더 모으기 위해 기다리는 최대 시간
+    @Builder.Default
+    private final Duration maxDelay = Duration.ofMillis(5);
+
+    // 아직 쓰지 못한 행을 보관하는 최대 수
+    @Builder.Default
+    private final int queueCapacity = 10_000;
+
+    // 대기열이 가득 찼을 때 submit 이 자리를 기다리는 최대 시간, 지나면 실패한 future 를 돌려준다.
+    @Builder.Default
+    private final Duration submitTimeout = Duration.ofSeconds(1);
+
+    public static InsertCoalescerConfig defaults() {
+        return InsertCoalescerConfig.builder().build();
+    }
+}
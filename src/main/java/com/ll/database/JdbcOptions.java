@@ -0,0 +1,92 @@
+package com.ll.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MySQL Connector/J 드라이버 속성
+ * null 인 항목은 드라이버 기본값을 그대로 쓴다.
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class JdbcOptions {
+    // 서버 측 prepare 를 쓴다. 같은 문장을 반복 실행할 때 파싱을 줄인다.
+    private final Boolean useServerPrepStmts;
+
+    // 드라이버가 닫힌 PreparedStatement 를 SQL 별로 보관한다.
+    private final Boolean cachePrepStmts;
+
+    private final Integer prepStmtCacheSize;
+
+    // 이보다 긴 SQL 은 드라이버 캐시에 넣지 않는다.
+    private final Integer prepStmtCacheSqlLimit;
+
+    // executeBatch 를 다중 행 INSERT 로 합쳐 보낸다.
+    private final Boolean rewriteBatchedStatements;
+
+    // 양수 fetch size 를 서버 커서로 나눠 받는다.
+    private final Boolean useCursorFetch;
+
+    // fetchSize 를 지정하지 않은 문장의 fetch size
+    private final Integer defaultFetchSize;
+
+    // autocommit, 격리 수준을 드라이버가 기억해 같은 값이면 서버에 다시 보내지 않는다.
+    private final Boolean useLocalSessionState;
+
+    // 접속할 때마다 서버 변수를 다시 조회하지 않는다.
+    private final Boolean cacheServerConfiguration;
+
+    private final Boolean tcpKeepAlive;
+
+    private final Duration connectTimeout;
+
+    // 응답을 기다리는 최대 시간, Duration.ZERO 는 무제한
+    private final Duration socketTimeout;
+
+    // LOAD DATA LOCAL INFILE 을 허용한다. 신뢰할 수 있는 서버에만 켠다.
+    private final Boolean allowLoadLocalInfile;
+
+    private final Boolean useCompression;
+
+    // 위에 없는 드라이버 속성, 같은 이름이면 이쪽이 우선한다.
+    @Singular
+    private final Map<String, String> properties;
+
+    public static JdbcOptions defaults() {
+        return JdbcProfile.DEFAULT.options();
+    }
+
+    /**
+     * 드라이버에 넘길 속성, 값이 정해진 것만 담는다.
+     */
+    public Map<String, String> toProperties() {
+        Map<String, String> result = new LinkedHashMap<>();
+        put(result, "useServerPrepStmts", useServerPrepStmts);
+        put(result, "cachePrepStmts", cachePrepStmts);
+        put(result, "prepStmtCacheSize", prepStmtCacheSize);
+        put(result, "prepStmtCacheSqlLimit", prepStmtCacheSqlLimit);
+        put(result, "rewriteBatchedStatements", rewriteBatchedStatements);
+        put(result, "useCursorFetch", useCursorFetch);
+        put(result, "defaultFetchSize", defaultFetchSize);
+        put(result, "useLocalSessionState", useLocalSessionState);
+        put(result, "cacheServerConfiguration", cacheServerConfiguration);
+        put(result, "tcpKeepAlive", tcpKeepAlive);
+        put(result, "connectTimeout", (connectTimeout != null) ? connectTimeout.toMillis() : null);
+        put(result, "socketTimeout", (socketTimeout != null) ? socketTimeout.toMillis() : null);
+        put(result, "allowLoadLocalInfile", allowLoadLocalInfile);
+        put(result, "useCompression", useCompression);
+        result.putAll(properties);
+        return result;
+    }
+
+    private static void put(Map<String, String> result, String name, Object value) {
+        if (value != null) result.put(name, value.toString());
+    }
+}
@@ -0,0 +1,58 @@
+package com.ll.database;
+
+import java.time.Duration;
+
+/**
+ * 용도별로 미리 정해 둔 드라이버 속성 묶음
+ * SimpleDb.builder().profile(...) 로 고른 뒤 jdbcOptions(...) 로 일부를 바꿀 수 있다.
+ */
+public enum JdbcProfile {
+    // 기존 생성자와 같은 설정, 배치 실행만 다중 행 INSERT 로 합친다.
+    DEFAULT(JdbcOptions.builder()
+            .rewriteBatchedStatements(true)
+            .build()),
+
+    // 짧은 쿼리를 많이 보내는 서비스용, 서버 측 prepare 와 왕복 줄이기에 맞춘다.
+    OLTP_LOW_LATENCY(JdbcOptions.builder()
+            .useServerPrepStmts(true)
+            .cachePrepStmts(true)
+            .prepStmtCacheSize(256)
+            .prepStmtCacheSqlLimit(2048)
+            .rewriteBatchedStatements(true)
+            .useLocalSessionState(true)
+            .cacheServerConfiguration(true)
+            .tcpKeepAlive(true)
+            .connectTimeout(Duration.ofSeconds(2))
+            .socketTimeout(Duration.ofSeconds(10))
+            .build()),
+
+    // 대량 적재용, 배치 재작성과 LOAD DATA LOCAL INFILE 을 켜고 긴 실행을 끊지 않는다.
+    BULK_LOAD(JdbcOptions.builder()
+            .rewriteBatchedStatements(true)
+            .allowLoadLocalInfile(true)
+            .tcpKeepAlive(true)
+            .connectTimeout(Duration.ofSeconds(5))
+            .socketTimeout(Duration.ZERO)
+            .build()),
+
+    // 큰 결과를 나눠 읽는 분석용, 서버 커서로 받고 긴 스트리밍을 끊지 않는다.
+    ANALYTICS_STREAMING(JdbcOptions.builder()
+            .useServerPrepStmts(true)
+            .useCursorFetch(true)
+            .defaultFetchSize(1000)
+            .tcpKeepAlive(true)
+            .connectTimeout(Duration.ofSeconds(5))
+            .socketTimeout(Duration.ZERO)
+            .property("netTimeoutForStreamingResults", "3600")
+            .build());
+
+    private final JdbcOptions options;
+
+    JdbcProfile(JdbcOptions options) {
+        this.options = options;
+    }
+
+    public JdbcOptions options() {
+        return options;
+    }
+}
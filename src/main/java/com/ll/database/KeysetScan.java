@@ -0,0 +1,181 @@
+package com.ll.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 증가하는 키 컬럼을 기준으로 큰 테이블을 페이지 단위로 훑는다.
+ * 페이지마다 WHERE key > 마지막키 ORDER BY key LIMIT n 으로 읽으므로 OFFSET 과 달리 뒤로 갈수록 느려지지 않는다.
+ * prefetch 를 켜면 현재 페이지를 처리하는 동안 다음 페이지를 가상 쓰레드에서 미리 읽는다. (트랜잭션 밖에서만)
+ */
+public class KeysetScan<T> implements Iterable<List<T>> {
+    private static final Pattern WHERE = Pattern.compile("(?i)\\bWHERE\\b");
+    private static final Pattern NOT_ALLOWED = Pattern.compile("(?i)\\bORDER\\s+BY\\b|\\bLIMIT\\b|\\bOFFSET\\b");
+    // 키 조건을 마지막 WHERE 뒤에 이어 붙이므로 집계, 합집합, 하위 조회가 있으면 엉뚱한 곳에 붙는다.
+    private static final Pattern UNSUPPORTED = Pattern.compile("(?i)\\bGROUP\\s+BY\\b|\\bHAVING\\b|\\bUNION\\b|\\(\\s*SELECT\\b");
+
+    private final SimpleDb simpleDb;
+    private final Supplier<RowMapper<T>> rowMappers;
+    private final String keyColumn;
+    private final String keyLabel;
+    private final String firstPageSql;
+    private final String nextPageSql;
+    private final Object[] params;
+    private int pageSize = 1000;
+    private boolean prefetch;
+
+    KeysetScan(SimpleDb simpleDb, Supplier<RowMapper<T>> rowMappers, String keyColumn, String baseQuery, Object[] params) {
+        String base = baseQuery.strip();
+        if (NOT_ALLOWED.matcher(base).find()) {
+            throw new IllegalArgumentException("Keyset scan adds its own ORDER BY and LIMIT: " + baseQuery);
+        }
+        if (UNSUPPORTED.matcher(base).find()) {
+            throw new IllegalArgumentException("Keyset scan supports a plain SELECT with an optional WHERE only: " + baseQuery);
+        }
+        this.simpleDb = simpleDb;
+        this.rowMappers = rowMappers;
+        this.keyColumn = keyColumn;
+        String label = keyColumn.replace("`", "");
+        this.keyLabel = label.substring(label.lastIndexOf('.') + 1);
+        this.params = params;
+
+        String orderAndLimit = " ORDER BY " + keyColumn + " ASC LIMIT ?";
+        Matcher where = WHERE.matcher(base);
+        if (where.find()) {
+            // 기존 조건에 OR 가 있어도 키 조건이 전체에 걸리도록 괄호로 묶는다.
+            String conditions = base.substring(where.end()).strip();
+            String select = base.substring(0, where.start()).strip();
+            this.firstPageSql = select + " WHERE (" + conditions + ")" + orderAndLimit;
+            this.nextPageSql = select + " WHERE (" + conditions + ") AND " + keyColumn + " > ?" + orderAndLimit;
+        } else {
+            this.firstPageSql = base + orderAndLimit;
+            this.nextPageSql = base + " WHERE " + keyColumn + " > ?" + orderAndLimit;
+        }
+    }
+
+    public KeysetScan<T> pageSize(int pageSize) {
+        if (pageSize <= 0) throw new IllegalArgumentException("Page size must be positive.");
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public KeysetScan<T> prefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    /**
+     * 페이지 단위 반복자, 빈 페이지는 돌려주지 않는다.
+     */
+    @Override
+    public Iterator<List<T>> iterator() {
+        return new PageIterator();
+    }
+
+    // 모든 행을 차례로 흘려보내는 스트림
+    public Stream<T> stream() {
+        Spliterator<List<T>> pages = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(pages, false).flatMap(List::stream);
+    }
+
+    public void forEachRow(Consumer<? super T> action) {
+        for (List<T> page : this) {
+            page.forEach(action);
+        }
+    }
+
+    private record Page<T>(List<T> rows, Object lastKey) {
+    }
+
+    private Page<T> fetch(Object lastKey) {
+        Object[] args;
+        String sql;
+        if (lastKey == null) {
+            sql = firstPageSql;
+            args = Arrays.copyOf(params, params.length + 1);
+        } else {
+            sql = nextPageSql;
+            args = Arrays.copyOf(params, params.length + 2);
+            args[params.length] = lastKey;
+        }
+        args[args.length - 1] = pageSize;
+
+        // 페이지의 마지막 행에서 다음 페이지의 기준 키를 읽는다.
+        RowMapper<T> rowMapper = rowMappers.get();
+        Object[] pageLastKey = {lastKey};
+        List<T> rows = simpleDb.genSql(sql, args).selectRows((ResultSet resultSet) -> {
+            T row = rowMapper.map(resultSet);
+            pageLastKey[0] = readKey(resultSet);
+            return row;
+        });
+        return new Page<>(rows, pageLastKey[0]);
+    }
+
+    private Object readKey(ResultSet resultSet) throws SQLException {
+        try {
+            return resultSet.getObject(keyLabel);
+        } catch (SQLException e) {
+            throw new SQLException("Keyset column %s must be selected".formatted(keyColumn), e);
+        }
+    }
+
+    private class PageIterator implements Iterator<List<T>> {
+        private Object lastKey;
+        private List<T> next;
+        private boolean done;
+        private CompletableFuture<Page<T>> pending;
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (done) return false;
+
+            Page<T> page = (pending != null) ? join(pending) : fetch(lastKey);
+            pending = null;
+            if (page.rows().isEmpty()) {
+                done = true;
+                return false;
+            }
+            next = page.rows();
+            lastKey = page.lastKey();
+            if (page.rows().size() < pageSize) {
+                done = true;
+            } else if (prefetch && !simpleDb.isInTransaction()) {
+                Object key = lastKey;
+                pending = simpleDb.async(() -> fetch(key));
+            }
+            return true;
+        }
+
+        @Override
+        public List<T> next() {
+            if (!hasNext()) throw new NoSuchElementException("No more pages");
+            List<T> page = next;
+            next = null;
+            return page;
+        }
+
+        private Page<T> join(CompletableFuture<Page<T>> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ll.database;
+
+import lombok.Getter;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 지연 시간 히스토그램의 한 시점 요약, 단위는 나노초
+ */
+@Getter
+public class LatencySnapshot {
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    @ConstructorProperties({"count", "mean", "p50", "p99", "p999", "max"})
+    public LatencySnapshot(long count, long mean, long p50, long p99, long p999, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    @Override
+    public String toString() {
+        return "{count=%d, mean=%dns, p50=%dns, p99=%dns, p999=%dns, max=%dns}"
+                .formatted(count, mean, p50, p99, p999, max);
+    }
+}
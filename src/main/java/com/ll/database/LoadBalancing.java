@@ -0,0 +1,11 @@
+package com.ll.database;
+
+/**
+ * 복제본 사이에서 읽기를 나누는 방법
+ */
+public enum LoadBalancing {
+    // 복제본을 차례로 돌아가며 쓴다.
+    ROUND_ROBIN,
+    // 빌려간 커넥션과 대기 중인 요청이 가장 적은 복제본을 쓴다.
+    LEAST_OUTSTANDING
+}
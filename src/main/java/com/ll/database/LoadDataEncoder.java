@@ -0,0 +1,137 @@
+package com.ll.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+/**
+ * 행들을 LOAD DATA 의 기본 텍스트 형식(탭 구분, 줄바꿈 종료, \ 이스케이프, NULL 은 \N)으로 바꿔 읽히는 InputStream
+ * 드라이버가 읽는 만큼만 다음 행을 인코딩하므로 전체를 메모리나 임시 파일에 올리지 않는다.
+ */
+class LoadDataEncoder extends InputStream {
+    private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATETIME_MICROS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private final Iterator<Object[]> rows;
+    private final int columnCount;
+    private final StringBuilder line = new StringBuilder(256);
+    private byte[] buffer = new byte[0];
+    private int position;
+    private long rowCount;
+    // 행을 읽거나 인코딩하다 난 오류, 드라이버에는 IOException 으로 알린다.
+    private RuntimeException failure;
+
+    LoadDataEncoder(Iterator<Object[]> rows, int columnCount) {
+        this.rows = rows;
+        this.columnCount = columnCount;
+    }
+
+    // 지금까지 인코딩한 행 수
+    long rowCount() {
+        return rowCount;
+    }
+
+    // 인코딩이 실패했으면 그 오류, 아니면 null
+    RuntimeException failure() {
+        return failure;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) return -1;
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        int written = 0;
+        while (written < length && fill()) {
+            int count = Math.min(length - written, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset + written, count);
+            position += count;
+            written += count;
+        }
+        return (written == 0) ? -1 : written;
+    }
+
+    /**
+     * 버퍼를 다 읽었으면 다음 행을 인코딩한다. 더 읽을 행이 없으면 false
+     * 드라이버가 스트림을 읽는 중에 RuntimeException 이 새면 LOAD DATA 의 끝 패킷이 가지 않으므로
+     * 행 오류와 호출자 iterator 의 오류는 모두 IOException 으로 바꿔 던진다.
+     */
+    private boolean fill() throws IOException {
+        if (failure != null) throw new IOException("Bulk load row encoding failed", failure);
+        try {
+            return encodeNext();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw new IOException("Bulk load row encoding failed", e);
+        }
+    }
+
+    private boolean encodeNext() {
+        while (position >= buffer.length) {
+            if (!rows.hasNext()) return false;
+            Object[] row = rows.next();
+            if (row.length != columnCount) {
+                throw new IllegalArgumentException("Expected %d values but got %d in row %d"
+                        .formatted(columnCount, row.length, rowCount + 1));
+            }
+            line.setLength(0);
+            encodeRow(line, row);
+            buffer = line.toString().getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            rowCount++;
+        }
+        return true;
+    }
+
+    static void encodeRow(StringBuilder line, Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) line.append('\t');
+            appendValue(line, row[i]);
+        }
+        line.append('\n');
+    }
+
+    static void appendValue(StringBuilder line, Object value) {
+        if (value == null) {
+            line.append("\\N");
+        } else if (value instanceof Boolean bool) {
+            // BIT 컬럼은 SET 절에서 숫자로 바꿔 넣는다.
+            line.append(bool ? '1' : '0');
+        } else if (value instanceof Number number) {
+            line.append((number instanceof BigDecimal decimal) ? decimal.toPlainString() : number.toString());
+        } else if (value instanceof LocalDateTime dateTime) {
+            line.append((dateTime.getNano() == 0) ? DATETIME.format(dateTime) : DATETIME_MICROS.format(dateTime));
+        } else if (value instanceof LocalDate date) {
+            line.append(date);
+        } else if (value instanceof Enum<?> constant) {
+            appendEscaped(line, constant.name());
+        } else if (value instanceof byte[]) {
+            throw new IllegalArgumentException("Binary values are not supported by bulk load");
+        } else {
+            appendEscaped(line, value.toString());
+        }
+    }
+
+    private static void appendEscaped(StringBuilder line, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> line.append("\\\\");
+                case '\t' -> line.append("\\t");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\0' -> line.append("\\0");
+                default -> line.append(c);
+            }
+        }
+    }
+}
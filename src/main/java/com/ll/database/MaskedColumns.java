@@ -0,0 +1,60 @@
+package com.ll.database;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * SQL 의 플레이스홀더 중 가려야 할 컬럼에 묶인 것을 찾는다.
+ * 플레이스홀더 바로 앞의 "컬럼 연산자" 를 보고 판단하며, SQL 마다 결과를 캐시한다.
+ */
+final class MaskedColumns {
+    private static final int MAX_CACHED = 1000;
+    private static final Pattern PLACEHOLDER = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'|\\?");
+    private static final Pattern COLUMN_BEFORE = Pattern.compile("([\\w`.]+)\\s*(?:=|<>|!=|<=|>=|<|>|(?i:LIKE))\\s*$");
+
+    private final Set<String> columns;
+    private final Map<String, boolean[]> maskedBySql = new ConcurrentHashMap<>();
+
+    MaskedColumns(String... columnNames) {
+        this.columns = Arrays.stream(columnNames)
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    boolean isMasked(String sql, int index) {
+        boolean[] flags = maskedBySql.get(sql);
+        if (flags == null) {
+            if (maskedBySql.size() >= MAX_CACHED) maskedBySql.clear();
+            flags = maskedPlaceholders(sql);
+            maskedBySql.put(sql, flags);
+        }
+        return index < flags.length && flags[index];
+    }
+
+    private boolean[] maskedPlaceholders(String sql) {
+        boolean[] flags = new boolean[16];
+        int count = 0;
+        Matcher matcher = PLACEHOLDER.matcher(sql);
+        while (matcher.find()) {
+            // 문자열 리터럴 안의 ? 는 건너뛴다.
+            if (!matcher.group().equals("?")) continue;
+            if (count == flags.length) flags = Arrays.copyOf(flags, count * 2);
+
+            int from = Math.max(0, matcher.start() - 128);
+            Matcher column = COLUMN_BEFORE.matcher(sql.substring(from, matcher.start()));
+            if (column.find()) {
+                String name = column.group(1).replace("`", "");
+                name = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+                flags[count] = columns.contains(name);
+            }
+            count++;
+        }
+        return Arrays.copyOf(flags, count);
+    }
+}
@@ -0,0 +1,275 @@
+package com.ll.database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 정수 주키 범위로 테이블을 나눠 여러 커넥션에서 동시에 읽는다.
+ * MIN(key)~MAX(key) 를 partitions 개의 같은 폭 범위로 자르고, parallelism 개의 가상 쓰레드가 범위를 하나씩 가져가 읽는다.
+ * 각 범위는 자기 커넥션에서 실행되므로 호출한 쓰레드의 트랜잭션에는 참여하지 않는다.
+ */
+public class ParallelScan<T> {
+    private final SimpleDb simpleDb;
+    private final Supplier<RowMapper<T>> rowMappers;
+    private final String table;
+    private final String keyColumn;
+    private String columns = "*";
+    private String condition;
+    private Object[] params = new Object[0];
+    private int parallelism = 4;
+    private int partitions;
+    private int fetchSize = Integer.MIN_VALUE;
+
+    ParallelScan(SimpleDb simpleDb, Supplier<RowMapper<T>> rowMappers, String table, String keyColumn) {
+        this.simpleDb = simpleDb;
+        this.rowMappers = rowMappers;
+        this.table = table;
+        this.keyColumn = keyColumn;
+    }
+
+    // 조회할 컬럼 목록, 기본은 *
+    public ParallelScan<T> columns(String columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    // 모든 범위에 함께 걸리는 조건 (WHERE 없이)
+    public ParallelScan<T> where(String condition, Object... params) {
+        this.condition = condition;
+        this.params = params;
+        return this;
+    }
+
+    // 동시에 읽는 범위 수, 실제 동시 실행 수는 커넥션 풀 크기로도 제한된다.
+    public ParallelScan<T> parallelism(int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    // 나눌 범위 수, 0 이면 parallelism * 4 (범위마다 행 수가 고르지 않아도 일이 고르게 돌아가도록)
+    public ParallelScan<T> partitions(int partitions) {
+        if (partitions < 0) throw new IllegalArgumentException("Partitions must not be negative.");
+        this.partitions = partitions;
+        return this;
+    }
+
+    // 범위를 읽을 때의 fetch size, 기본값은 MySQL 행 단위 스트리밍
+    public ParallelScan<T> fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * 모든 행을 action 에 넘긴다. action 은 여러 쓰레드에서 동시에 호출되므로 쓰레드 안전해야 한다.
+     * 한 범위에서 실패하면 나머지 범위도 멈추고 그 예외를 던진다.
+     */
+    public void forEach(Consumer<? super T> action) {
+        List<long[]> ranges = splitRanges();
+        AtomicInteger nextRange = new AtomicInteger();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        String sql = rangeSql(false);
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, ranges.size()); i++) {
+            workers.add(simpleDb.async(() -> {
+                int index;
+                while (failure.get() == null && (index = nextRange.getAndIncrement()) < ranges.size()) {
+                    try (ResultCursor<T> cursor = simpleDb.genSql(sql, rangeArgs(ranges.get(index)))
+                            .fetchSize(fetchSize)
+                            .selectCursor(rowMappers.get())) {
+                        while (failure.get() == null && cursor.hasNext()) {
+                            action.accept(cursor.next());
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        if (failure.get() != null) throw failure.get();
+    }
+
+    /**
+     * 키 순서대로 정렬된 스트림
+     * 범위마다 ORDER BY key 로 읽고, 앞에서부터 parallelism 개 범위만 미리 읽어 두므로 메모리는 그 범위들만큼 쓴다.
+     */
+    public Stream<T> stream() {
+        List<long[]> ranges = splitRanges();
+        String sql = rangeSql(true);
+
+        Iterator<List<T>> partitionIterator = new Iterator<>() {
+            private final Deque<CompletableFuture<List<T>>> window = new ArrayDeque<>();
+            private int submitted;
+
+            @Override
+            public boolean hasNext() {
+                fill();
+                return !window.isEmpty();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) throw new NoSuchElementException("No more partitions");
+                List<T> rows = join(window.pollFirst());
+                fill();
+                return rows;
+            }
+
+            private void fill() {
+                while (window.size() < parallelism && submitted < ranges.size()) {
+                    Object[] args = rangeArgs(ranges.get(submitted++));
+                    window.addLast(simpleDb.async(() -> simpleDb.genSql(sql, args).selectRows(rowMappers.get())));
+                }
+            }
+        };
+        Spliterator<List<T>> spliterator = Spliterators.spliteratorUnknownSize(partitionIterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).flatMap(List::stream);
+    }
+
+    /**
+     * 읽히는 대로 흘려보내는 순서 없는 스트림, try-with-resources 로 닫으면 남은 읽기를 멈춘다.
+     * 소비가 느리면 버퍼가 찰 때 읽는 쪽이 기다린다.
+     */
+    public Stream<T> unorderedStream() {
+        Object end = new Object();
+        BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(Math.max(1024, parallelism * 256));
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicReference<Boolean> closed = new AtomicReference<>(false);
+
+        // 범위를 읽는 작업들을 기다리기만 하므로 비동기 실행기의 동시 실행 수를 차지하지 않게 따로 띄운다.
+        Thread.ofVirtual().name("simpledb-parallel-scan").start(() -> {
+            try {
+                forEach(row -> {
+                    if (closed.get()) throw new CancellationSignal();
+                    put(buffer, row);
+                });
+            } catch (CancellationSignal ignored) {
+                // 스트림이 먼저 닫혔다.
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+            put(buffer, end);
+        });
+
+        Iterator<T> rows = new Iterator<>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) next = take(buffer);
+                if (next == end) {
+                    if (failure.get() != null) throw failure.get();
+                    return false;
+                }
+                return true;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException("No more rows");
+                T row = (T) next;
+                next = null;
+                return row;
+            }
+        };
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(rows, Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            closed.set(true);
+            // 버퍼를 비워 기다리던 읽기 쓰레드가 닫힘을 알아채게 한다.
+            buffer.clear();
+        });
+    }
+
+    // MIN~MAX 를 같은 폭으로 나눈 [from, to) 범위들
+    List<long[]> splitRanges() {
+        String where = (condition != null) ? " WHERE " + condition : "";
+        Map<String, Object> bounds = simpleDb.genSql()
+                .append("SELECT MIN(%s) AS lo, MAX(%s) AS hi FROM %s%s".formatted(keyColumn, keyColumn, table, where), params)
+                .selectRow();
+        if (bounds.get("lo") == null) return List.of();
+
+        long lo = ((Number) bounds.get("lo")).longValue();
+        long hi = ((Number) bounds.get("hi")).longValue();
+        long span = hi - lo + 1;
+        int count = (int) Math.min((partitions > 0) ? partitions : (long) parallelism * 4, span);
+        long step = (span + count - 1) / count;
+
+        List<long[]> ranges = new ArrayList<>(count);
+        for (long from = lo; from <= hi; from += step) {
+            ranges.add(new long[]{from, Math.min(from + step, hi + 1)});
+        }
+        return ranges;
+    }
+
+    private String rangeSql(boolean ordered) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns)
+                .append(" FROM ").append(table)
+                .append(" WHERE ").append(keyColumn).append(" >= ? AND ").append(keyColumn).append(" < ?");
+        if (condition != null) sql.append(" AND (").append(condition).append(')');
+        if (ordered) sql.append(" ORDER BY ").append(keyColumn);
+        return sql.toString();
+    }
+
+    private Object[] rangeArgs(long[] range) {
+        Object[] args = new Object[params.length + 2];
+        args[0] = range[0];
+        args[1] = range[1];
+        System.arraycopy(params, 0, args, 2, params.length);
+        return args;
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static void put(BlockingQueue<Object> buffer, Object value) {
+        try {
+            buffer.put(value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationSignal();
+        }
+    }
+
+    private static Object take(BlockingQueue<Object> buffer) {
+        try {
+            return buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for rows", e);
+        }
+    }
+
+    // 닫힌 unorderedStream 의 읽기를 멈추는 신호
+    private static class CancellationSignal extends RuntimeException {
+        CancellationSignal() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ll.database;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 값의 타입에 맞는 PreparedStatement setter 로 파라미터를 바인딩한다.
+ * 타입별 바인더는 클래스마다 한 번 정해 두고, 모르는 타입은 setObject 로 넘긴다.
+ */
+@FunctionalInterface
+interface ParamBinder {
+    void bind(PreparedStatement statement, int index, Object value) throws SQLException;
+
+    ClassValue<ParamBinder> BY_TYPE = new ClassValue<>() {
+        @Override
+        protected ParamBinder computeValue(Class<?> type) {
+            return binderOf(type);
+        }
+    };
+
+    static void bindAll(PreparedStatement statement, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                statement.setObject(i + 1, null);
+            } else {
+                BY_TYPE.get(value.getClass()).bind(statement, i + 1, value);
+            }
+        }
+    }
+
+    private static ParamBinder binderOf(Class<?> type) {
+        if (type == Long.class) return (ps, i, v) -> ps.setLong(i, (Long) v);
+        if (type == Integer.class) return (ps, i, v) -> ps.setInt(i, (Integer) v);
+        if (type == String.class) return (ps, i, v) -> ps.setString(i, (String) v);
+        if (type == Boolean.class) return (ps, i, v) -> ps.setBoolean(i, (Boolean) v);
+        if (type == Double.class) return (ps, i, v) -> ps.setDouble(i, (Double) v);
+        if (type == Float.class) return (ps, i, v) -> ps.setFloat(i, (Float) v);
+        if (type == Short.class) return (ps, i, v) -> ps.setShort(i, (Short) v);
+        if (type == Byte.class) return (ps, i, v) -> ps.setByte(i, (Byte) v);
+        if (type == BigDecimal.class) return (ps, i, v) -> ps.setBigDecimal(i, (BigDecimal) v);
+        if (type == byte[].class) return (ps, i, v) -> ps.setBytes(i, (byte[]) v);
+        if (type.isEnum()) return (ps, i, v) -> ps.setString(i, ((Enum<?>) v).name());
+        // LocalDateTime, LocalDate 도 setObject 로 넘겨야 컴파일하지 않은 경로와 같은 값(시간대 변환 없이)이 들어간다.
+        return PreparedStatement::setObject;
+    }
+}
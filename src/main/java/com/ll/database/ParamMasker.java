@@ -0,0 +1,28 @@
+package com.ll.database;
+
+/**
+ * 쿼리 로그에 남길 파라미터 값을 가린다. index 는 0 부터 시작하는 플레이스홀더 순서다.
+ */
+@FunctionalInterface
+public interface ParamMasker {
+    String MASK = "****";
+
+    Object mask(String sql, int index, Object value);
+
+    static ParamMasker none() {
+        return (sql, index, value) -> value;
+    }
+
+    static ParamMasker all() {
+        return (sql, index, value) -> MASK;
+    }
+
+    /**
+     * 주어진 컬럼과 비교되거나 대입되는 파라미터를 가린다. (예: password = ?)
+     * VALUES 목록처럼 컬럼을 바로 알 수 없는 위치의 값은 가리지 않는다.
+     */
+    static ParamMasker columns(String... columnNames) {
+        MaskedColumns maskedColumns = new MaskedColumns(columnNames);
+        return (sql, index, value) -> maskedColumns.isMasked(sql, index) ? MASK : value;
+    }
+}
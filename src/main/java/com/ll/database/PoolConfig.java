@@ -0,0 +1,51 @@
+package com.ll.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * 커넥션 풀 설정
+ */
+@Getter
+@Builder
+@ToString
+public class PoolConfig {
+    // 풀이 항상 유지하려는 최소 커넥션 수
+    @Builder.Default
+    private final int minSize = 2;
+
+    // 동시에 빌려줄 수 있는 최대 커넥션 수
+    @Builder.Default
+    private final int maxSize = 10;
+
+    // 커넥션을 빌릴 때 기다리는 최대 시간
+    @Builder.Default
+    private final Duration borrowTimeout = Duration.ofSeconds(30);
+
+    // 대여 시 Connection.isValid 검사에 쓰는 시간
+    @Builder.Default
+    private final Duration validationTimeout = Duration.ofSeconds(2);
+
+    // 이 시간 동안 쓰이지 않은 유휴 커넥션은 정리 (minSize 까지)
+    @Builder.Default
+    private final Duration idleTimeout = Duration.ofMinutes(10);
+
+    // 물리 커넥션의 최대 수명, 지나면 반납 시점이나 정리 주기에 폐기
+    @Builder.Default
+    private final Duration maxLifetime = Duration.ofMinutes(30);
+
+    // 유휴 커넥션 정리 작업 주기
+    @Builder.Default
+    private final Duration evictionInterval = Duration.ofSeconds(30);
+
+    // 커넥션마다 보관할 PreparedStatement 수, 0 이면 캐시하지 않는다.
+    @Builder.Default
+    private final int statementCacheSize = 64;
+
+    public static PoolConfig defaults() {
+        return PoolConfig.builder().build();
+    }
+}
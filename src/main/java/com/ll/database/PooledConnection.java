@@ -0,0 +1,156 @@
+package com.ll.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 풀이 관리하는 물리 커넥션
+ * 대여할 때마다 새 프록시(Lease)를 만들어 건네주고, 프록시의 close() 는 풀 반납으로 바뀐다.
+ */
+class PooledConnection {
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final long createdAt;
+    private volatile long lastUsedAt;
+    private volatile boolean broken;
+
+    PooledConnection(ConnectionPool pool, Connection physical) {
+        this.pool = pool;
+        this.physical = physical;
+        int cacheSize = pool.getConfig().getStatementCacheSize();
+        this.statementCache = (cacheSize > 0)
+                ? new StatementCache(physical, cacheSize, pool.getStatementCacheStats())
+                : null;
+        this.createdAt = System.nanoTime();
+        this.lastUsedAt = createdAt;
+    }
+
+    Connection physical() {
+        return physical;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    long lastUsedAt() {
+        return lastUsedAt;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    StatementCache statementCache() {
+        return statementCache;
+    }
+
+    // 연결이 끊어진 오류(08 계열 SQLState)면 풀에 돌려보내지 않도록 표시한다.
+    void markBrokenIfFatal(SQLException e) {
+        if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+            broken = true;
+        }
+    }
+
+    // 프로토콜 상태를 알 수 없게 된 커넥션, 풀에 돌려보내지 않고 닫는다.
+    void markBroken() {
+        broken = true;
+    }
+
+    Connection lease() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Lease()
+        );
+    }
+
+    // 반납 전에 다음 사용자가 영향을 받지 않도록 상태를 되돌린다.
+    void reset() throws SQLException {
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+        physical.clearWarnings();
+        lastUsedAt = System.nanoTime();
+    }
+
+    void closePhysical() {
+        if (statementCache != null) statementCache.clear();
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+            // 이미 끊어진 커넥션은 닫기 실패를 무시한다.
+        }
+    }
+
+    static void markBrokenIfFatal(Connection connection, SQLException e) {
+        PooledConnection pooled = of(connection);
+        if (pooled != null) pooled.markBrokenIfFatal(e);
+    }
+
+    static void markBroken(Connection connection) {
+        PooledConnection pooled = of(connection);
+        if (pooled != null) pooled.markBroken();
+    }
+
+    /**
+     * 프록시로 빌려준 커넥션이면 풀 커넥션을, 아니면 null 을 돌려준다.
+     */
+    static PooledConnection of(Connection connection) {
+        if (connection != null && Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof Lease lease) {
+            return lease.owner();
+        }
+        return null;
+    }
+
+    // 한 번의 대여를 나타내는 핸들, 닫힌 뒤에는 물리 커넥션에 접근하지 못한다.
+    private class Lease implements InvocationHandler {
+        private volatile boolean closed;
+
+        PooledConnection owner() {
+            return PooledConnection.this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + physical + "]";
+                }
+            }
+
+            if (closed) throw new SQLException("Connection is already returned to the pool", "08003");
+
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlException) markBrokenIfFatal(sqlException);
+                throw cause;
+            }
+        }
+    }
+}
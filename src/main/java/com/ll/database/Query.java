@@ -0,0 +1,198 @@
+package com.ll.database;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * 한 번 컴파일해 두고 여러 쓰레드에서 다른 인자로 실행하는 쿼리
+ * SQL 은 만들 때 한 번만 정리하며, 실행마다 문자열 조립이나 파라미터 리스트 복사를 하지 않는다.
+ * 파라미터는 ? (위치) 나 :name (이름) 중 한 가지로 쓴다. 이름 파라미터는 args(Map) 로 인자 배열을 만든다.
+ * 실행은 호출한 쓰레드의 트랜잭션을 따르며, 인스턴스는 변경되지 않으므로 공유해도 된다.
+ */
+public final class Query {
+    private final SimpleDb simpleDb;
+    private final String sql;
+    // 이름 파라미터의 위치별 이름, 위치 파라미터만 쓰면 null
+    private final String[] names;
+    private final int parameterCount;
+
+    Query(SimpleDb simpleDb, String source) {
+        this.simpleDb = simpleDb;
+        List<String> parsedNames = new ArrayList<>();
+        int[] positional = {0};
+        this.sql = parse(source.strip(), parsedNames, positional);
+        if (!parsedNames.isEmpty() && positional[0] > 0) {
+            throw new IllegalArgumentException("Cannot mix ? and :name parameters: " + source);
+        }
+        this.names = parsedNames.isEmpty() ? null : parsedNames.toArray(String[]::new);
+        this.parameterCount = parsedNames.isEmpty() ? positional[0] : parsedNames.size();
+    }
+
+    // ? 로 바뀐 실행용 SQL
+    public String getSql() {
+        return sql;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * 이름 파라미터 값을 SQL 에 나오는 순서대로 배열로 만든다.
+     */
+    public Object[] args(Map<String, ?> namedArgs) {
+        if (names == null) throw new IllegalStateException("Query has no named parameters: " + sql);
+        Object[] args = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (!namedArgs.containsKey(names[i])) {
+                throw new IllegalArgumentException("Missing value for parameter :" + names[i]);
+            }
+            args[i] = namedArgs.get(names[i]);
+        }
+        return args;
+    }
+
+    public long insert(Object... args) {
+        return bind(args).insert();
+    }
+
+    public int update(Object... args) {
+        return bind(args).update();
+    }
+
+    public int delete(Object... args) {
+        return bind(args).delete();
+    }
+
+    public Map<String, Object> selectRow(Object... args) {
+        return bind(args).selectRow();
+    }
+
+    public List<Map<String, Object>> selectRows(Object... args) {
+        return bind(args).selectRows();
+    }
+
+    public <T> T selectRow(Class<T> tClass, Object... args) {
+        return bind(args).selectRow(tClass);
+    }
+
+    public <T> List<T> selectRows(Class<T> tClass, Object... args) {
+        return bind(args).selectRows(tClass);
+    }
+
+    public Long selectLong(Object... args) {
+        return bind(args).selectLong();
+    }
+
+    public List<Long> selectLongs(Object... args) {
+        return bind(args).selectLongs();
+    }
+
+    public long[] selectLongArray(Object... args) {
+        return bind(args).selectLongArray();
+    }
+
+    public LongStream selectLongStream(Object... args) {
+        return bind(args).selectLongStream();
+    }
+
+    public int[] selectIntArray(Object... args) {
+        return bind(args).selectIntArray();
+    }
+
+    public double[] selectDoubleArray(Object... args) {
+        return bind(args).selectDoubleArray();
+    }
+
+    public String selectString(Object... args) {
+        return bind(args).selectString();
+    }
+
+    public Boolean selectBoolean(Object... args) {
+        return bind(args).selectBoolean();
+    }
+
+    public LocalDateTime selectDatetime(Object... args) {
+        return bind(args).selectDatetime();
+    }
+
+    // 실행 한 번에 쓰는 Sql, 인자 배열은 복사하지 않으므로 실행 중에 바꾸지 않아야 한다.
+    private Sql bind(Object[] args) {
+        if (args.length != parameterCount) {
+            throw new IllegalArgumentException("Expected %d parameters but got %d: %s"
+                    .formatted(parameterCount, args.length, Arrays.toString(args)));
+        }
+        return simpleDb.genSql(sql, args);
+    }
+
+    // 문자열, 식별자 인용, 주석(-- , #, /* */) 안의 ? 와 : 는 건너뛴다. :: 는 이름 파라미터로 보지 않는다.
+    private static String parse(String source, List<String> names, int[] positional) {
+        StringBuilder parsed = new StringBuilder(source.length());
+        int length = source.length();
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = closingQuote(source, i, c);
+                parsed.append(source, i, end + 1);
+                i = end;
+            } else if (isLineComment(source, i)) {
+                int end = source.indexOf('\n', i);
+                if (end < 0) end = length - 1;
+                parsed.append(source, i, end + 1);
+                i = end;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                if (end < 0) throw new IllegalArgumentException("Unterminated comment in query: " + source);
+                parsed.append(source, i, end + 2);
+                i = end + 1;
+            } else if (c == '?') {
+                positional[0]++;
+                parsed.append(c);
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(source.charAt(i + 1))
+                    && (i == 0 || source.charAt(i - 1) != ':')) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(source.charAt(end))) end++;
+                names.add(source.substring(i + 1, end));
+                parsed.append('?');
+                i = end - 1;
+            } else {
+                parsed.append(c);
+            }
+        }
+        return parsed.toString();
+    }
+
+    // MySQL 의 -- 주석은 뒤에 공백이 있어야 한다. (a--1 은 뺄셈이다.)
+    private static boolean isLineComment(String source, int i) {
+        char c = source.charAt(i);
+        if (c == '#') return true;
+        return c == '-' && i + 1 < source.length() && source.charAt(i + 1) == '-'
+                && (i + 2 == source.length() || Character.isWhitespace(source.charAt(i + 2)));
+    }
+
+    private static int closingQuote(String source, int start, char quote) {
+        for (int i = start + 1; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == quote) {
+                // 같은 따옴표 두 개는 이스케이프된 따옴표다.
+                if (i + 1 < source.length() && source.charAt(i + 1) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unterminated quote in query: " + source);
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
@@ -11,6 +11,16 @@ class QueryBuilder {
         return this;
     }
 
+    // 지금까지 쌓인 문자열 길이, trim 전 기준
+    public int length() {
+        return queryBuilder.length();
+    }
+
+    // trim 전의 문자열
+    public String raw() {
+        return queryBuilder.toString();
+    }
+
     public String build() {
         return queryBuilder.toString().trim();
     }
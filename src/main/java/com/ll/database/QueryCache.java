@@ -0,0 +1,167 @@
+package com.ll.database;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SELECT 결과 캐시
+ * 최종 SQL 문자열과 바인딩 파라미터, 결과 타입을 키로 하며 크기(LRU)와 TTL 로 제거된다.
+ * 테이블에 쓰기가 일어나면 그 테이블을 읽은 항목이 모두 무효화된다.
+ */
+public class QueryCache {
+    record Key(String sql, List<Object> params, Class<?> resultType) {
+    }
+
+    private record Entry(Object value, Set<String> tables, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final Map<String, Set<Key>> keysByTable = new HashMap<>();
+    // 테이블별 쓰기 버전, 조회 도중 쓰기가 끼어들면 그 결과는 캐시에 넣지 않는다.
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QueryCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Cache size must be positive.");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    Object get(Key key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.value();
+            }
+            if (entry != null) remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 조회를 시작하기 전의 테이블 버전, put 할 때 함께 넘긴다.
+     */
+    long[] versionsOf(Collection<String> tables) {
+        long[] versions = new long[tables.size()];
+        int i = 0;
+        for (String table : tables) {
+            versions[i++] = versionOf(table).get();
+        }
+        return versions;
+    }
+
+    void put(Key key, Set<String> tables, long[] versionsBeforeRead, Object value) {
+        synchronized (this) {
+            int i = 0;
+            for (String table : tables) {
+                if (versionOf(table).get() != versionsBeforeRead[i++]) return;
+            }
+
+            Entry previous = entries.put(key, new Entry(value, tables, System.nanoTime() + ttlNanos));
+            if (previous != null) unindex(key, previous);
+            for (String table : tables) {
+                keysByTable.computeIfAbsent(table, ignored -> new HashSet<>()).add(key);
+            }
+
+            while (entries.size() > maxSize) {
+                Map.Entry<Key, Entry> eldest = entries.entrySet().iterator().next();
+                remove(eldest.getKey(), eldest.getValue());
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * 테이블을 읽은 캐시 항목을 모두 지운다.
+     */
+    public void invalidate(Collection<String> tables) {
+        if (tables.isEmpty()) return;
+        synchronized (this) {
+            for (String table : tables) {
+                versionOf(table).incrementAndGet();
+                Set<Key> keys = keysByTable.remove(table);
+                if (keys == null) continue;
+                for (Key key : keys) {
+                    Entry entry = entries.get(key);
+                    if (entry != null) {
+                        remove(key, entry);
+                        invalidations.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByTable.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return (total == 0) ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache{size=%d, hits=%d, misses=%d, evictions=%d, invalidations=%d}"
+                .formatted(size(), getHits(), getMisses(), getEvictions(), getInvalidations());
+    }
+
+    private AtomicLong versionOf(String table) {
+        return tableVersions.computeIfAbsent(table, ignored -> new AtomicLong());
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        unindex(key, entry);
+    }
+
+    private void unindex(Key key, Entry entry) {
+        for (String table : entry.tables()) {
+            Set<Key> keys = keysByTable.get(table);
+            if (keys == null) continue;
+            keys.remove(key);
+            if (keys.isEmpty()) keysByTable.remove(table);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.ll.database;
+
+/**
+ * 문장 실행이 끝날 때마다 실행 기록(ExecutionTrace)을 받는다.
+ * 켜진 리스너가 하나도 없으면 실행 기록 자체를 만들지 않는다.
+ */
+interface QueryListener {
+    boolean isActive();
+
+    void onExecution(ExecutionTrace trace);
+}
@@ -0,0 +1,208 @@
+package com.ll.database;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 비동기 쿼리 로그
+ * 쿼리 쓰레드는 SQL 과 파라미터 배열만 고정 크기 링 버퍼에 넣고 바로 돌아간다.
+ * 문자열 조립, 파라미터 가리기, 출력은 백그라운드 기록 쓰레드가 한다.
+ * 버퍼가 가득 차면 기다리지 않고 버린다.
+ */
+public class QueryLog implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private enum Kind {QUERY, RESULT, EVENT}
+
+    private record Entry(Kind kind, String text, Object[] params, Object value) {
+    }
+
+    private final QueryLogConfig config;
+    private final int mask;
+    private final AtomicReferenceArray<Entry> slots;
+    // 슬롯별 순번, 생산자와 소비자가 락 없이 슬롯 소유권을 넘겨받는 데 쓴다.
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // 기록 쓰레드만 올린다.
+    private volatile long head;
+    // 싱크에 넘기기까지 끝난 위치, flush 는 head 가 아니라 이 값을 기다린다.
+    private volatile long completed;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder sinkErrors = new LongAdder();
+
+    private final Thread appender;
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+
+    public QueryLog(QueryLogConfig config) {
+        if (config.getCapacity() <= 0) throw new IllegalArgumentException("Invalid query log capacity: " + config);
+        this.config = config;
+        int capacity = Integer.highestOneBit(Math.max(2, config.getCapacity() - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.appender = new Thread(this::drainLoop, "simpledb-query-log");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    public void logQuery(String sql, Object... params) {
+        double sampleRate = config.getSampleRate();
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.increment();
+            return;
+        }
+        offer(new Entry(Kind.QUERY, sql, params, null));
+    }
+
+    public void logResult(Object result) {
+        offer(new Entry(Kind.RESULT, null, null, result));
+    }
+
+    public void logEvent(String message) {
+        offer(new Entry(Kind.EVENT, message, null, null));
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getSinkErrors() {
+        return sinkErrors.sum();
+    }
+
+    /**
+     * 호출 시점까지 들어온 로그가 모두 기록될 때까지 최대 timeout 만큼 기다린다.
+     */
+    public boolean flush(Duration timeout) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (completed < target) {
+            if (System.nanoTime() >= deadline || !appender.isAlive()) return false;
+            LockSupport.unpark(appender);
+            Thread.onSpinWait();
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(appender);
+        try {
+            appender.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void offer(Entry entry) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, entry);
+                    sequences.set(index, position + 1);
+                    if (sleeping) LockSupport.unpark(appender);
+                    return;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // 기록 쓰레드가 아직 비우지 못한 슬롯, 버퍼가 가득 찼다.
+                dropped.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private Entry poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) return null;
+        Entry entry = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return entry;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            Entry entry = poll();
+            if (entry != null) {
+                write(entry);
+                completed = head;
+                continue;
+            }
+            if (closed) {
+                // 닫힌 뒤 진행 중이던 생산자가 슬롯을 채울 때까지 잠깐 더 비운다.
+                if (head == tail.get()) return;
+                Thread.onSpinWait();
+                continue;
+            }
+            sleeping = true;
+            if (head == tail.get()) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            sleeping = false;
+        }
+    }
+
+    private void write(Entry entry) {
+        try {
+            config.getSink().write(format(entry));
+            written.increment();
+        } catch (RuntimeException e) {
+            sinkErrors.increment();
+        }
+    }
+
+    private String format(Entry entry) {
+        return switch (entry.kind()) {
+            case QUERY -> "[DEV MODE] Query: " + entry.text()
+                    + System.lineSeparator()
+                    + "[DEV MODE] Parameters: " + formatParams(entry.text(), entry.params());
+            case RESULT -> "[DEV MODE] Result: " + entry.value();
+            case EVENT -> "[DEV MODE] " + entry.text();
+        };
+    }
+
+    private String formatParams(String sql, Object[] params) {
+        if (params == null) return "[]";
+        ParamMasker masker = config.getParamMasker();
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(masker.mask(sql, i, params[i]));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.ll.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 쿼리 로그 설정
+ */
+@Getter
+@Builder
+@ToString
+public class QueryLogConfig {
+    // 기록 쓰레드가 따라잡지 못할 때 쌓아둘 로그 수, 2 의 거듭제곱으로 올림된다. 가득 차면 버린다.
+    @Builder.Default
+    private final int capacity = 8192;
+
+    // 쿼리 로그를 남길 비율 (0.0 ~ 1.0)
+    @Builder.Default
+    private final double sampleRate = 1.0;
+
+    @Builder.Default
+    private final ParamMasker paramMasker = ParamMasker.none();
+
+    @Builder.Default
+    private final QueryLogSink sink = QueryLogSink.stdout();
+
+    public static QueryLogConfig defaults() {
+        return QueryLogConfig.builder().build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.ll.database;
+
+/**
+ * 쿼리 로그가 최종적으로 기록되는 곳
+ * 백그라운드 기록 쓰레드 하나에서만 호출되므로 구현이 쓰레드 안전할 필요는 없다.
+ */
+@FunctionalInterface
+public interface QueryLogSink {
+    void write(String line);
+
+    static QueryLogSink stdout() {
+        return System.out::println;
+    }
+}
@@ -0,0 +1,130 @@
+package com.ll.database;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 정규화된 SQL 모양별 실행 통계
+ * 커넥션 대여 대기, prepare, execute, fetch 시간을 히스토그램으로 모으고 행 수와 오류 수를 센다.
+ * 꺼져 있으면 실행 기록을 만들지 않으므로 쿼리 경로의 비용은 volatile 읽기 하나뿐이다.
+ */
+public class QueryMetrics implements QueryMetricsMXBean, QueryListener {
+    // SQL 모양이 끝없이 늘어나도 메모리가 묶이도록, 넘치는 모양은 하나로 모은다.
+    static final int MAX_SHAPES = 1000;
+    static final String OTHER_SHAPE = "<other>";
+
+    private final Map<String, StatementStats> statsByShape = new ConcurrentHashMap<>();
+    private final LongAdder totalExecutions = new LongAdder();
+    private final LongAdder totalErrors = new LongAdder();
+    private volatile boolean enabled = true;
+    private ObjectName objectName;
+
+    @Override
+    public boolean isActive() {
+        return enabled;
+    }
+
+    @Override
+    public void onExecution(ExecutionTrace trace) {
+        statsOf(SqlShape.of(trace.sql())).record(trace);
+        totalExecutions.increment();
+        if (trace.error() != null) totalErrors.increment();
+    }
+
+    private StatementStats statsOf(String shape) {
+        StatementStats stats = statsByShape.get(shape);
+        if (stats != null) return stats;
+        if (statsByShape.size() >= MAX_SHAPES) shape = OTHER_SHAPE;
+        return statsByShape.computeIfAbsent(shape, StatementStats::new);
+    }
+
+    /**
+     * SQL 모양 하나의 통계, 아직 실행된 적이 없으면 null
+     */
+    public StatementMetrics get(String sql) {
+        StatementStats stats = statsByShape.get(SqlShape.of(sql));
+        return (stats != null) ? stats.snapshot() : null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 전체 실행 시간 합이 큰 순서로 정렬된 통계
+     */
+    @Override
+    public List<StatementMetrics> getStatements() {
+        List<StatementMetrics> snapshots = new ArrayList<>(statsByShape.size());
+        for (StatementStats stats : statsByShape.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparingLong(
+                (StatementMetrics metrics) -> metrics.getTotal().getMean() * metrics.getTotal().getCount()
+        ).reversed());
+        return snapshots;
+    }
+
+    @Override
+    public long getTotalExecutions() {
+        return totalExecutions.sum();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return totalErrors.sum();
+    }
+
+    @Override
+    public int getShapeCount() {
+        return statsByShape.size();
+    }
+
+    @Override
+    public void reset() {
+        statsByShape.clear();
+        totalExecutions.reset();
+        totalErrors.reset();
+    }
+
+    /**
+     * 플랫폼 MBean 서버에 com.ll.database:type=QueryMetrics,name={name} 으로 등록한다.
+     */
+    synchronized void register(String name) {
+        if (objectName != null) return;
+        try {
+            ObjectName candidate = new ObjectName("com.ll.database:type=QueryMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(candidate)) server.unregisterMBean(candidate);
+            server.registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register query metrics MBean: " + name, e);
+        }
+    }
+
+    synchronized void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException ignored) {
+            // 이미 내려간 MBean 은 무시한다.
+        } finally {
+            objectName = null;
+        }
+    }
+}
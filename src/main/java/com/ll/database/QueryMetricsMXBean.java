@@ -0,0 +1,22 @@
+package com.ll.database;
+
+import java.util.List;
+
+/**
+ * JMX 로 노출되는 쿼리 통계
+ */
+public interface QueryMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    List<StatementMetrics> getStatements();
+
+    long getTotalExecutions();
+
+    long getTotalErrors();
+
+    int getShapeCount();
+
+    void reset();
+}
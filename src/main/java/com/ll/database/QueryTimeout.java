@@ -0,0 +1,146 @@
+package com.ll.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 실행 중인 문장을 시간 제한에 맞춰 Statement.cancel() 로 끊는 타이머
+ * setQueryTimeout 은 초 단위라 남은 기한이 1 초 미만이면 쓸 수 없으므로 직접 예약한다.
+ * MySQL 드라이버의 cancel() 은 별도 연결로 KILL QUERY 를 보내 서버 쪽 실행도 멈춘다.
+ * Sql.cancel() 도 같은 상태를 거쳐 취소하므로, close() 뒤에는 어떤 취소도 문장에 닿지 않는다.
+ */
+final class QueryTimeout implements AutoCloseable {
+    private static final int ARMED = 0;
+    private static final int FIRING = 1;
+    private static final int DONE = 2;
+
+    static final QueryTimeout NONE = new QueryTimeout(null, -1);
+
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    private final Statement statement;
+    private final long timeoutNanos;
+    private final AtomicInteger state = new AtomicInteger(ARMED);
+    private volatile boolean fired;
+    private volatile boolean cancelled;
+    // 진행 중인 cancel() 이 끝나면 열린다. close() 가 여기서 기다린다.
+    private final CountDownLatch cancelDone = new CountDownLatch(1);
+    private ScheduledFuture<?> scheduled;
+
+    private QueryTimeout(Statement statement, long timeoutNanos) {
+        this.statement = statement;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * 문장별 시간 제한(없으면 SimpleDb 기본값)과 현재 기한 중 더 짧은 것, 제한이 없으면 -1
+     * 기한이 이미 지났으면 실행하지 않고 예외를 던진다.
+     */
+    static long resolveNanos(Duration statementTimeout, Duration defaultTimeout) {
+        Duration timeout = (statementTimeout != null) ? statementTimeout : defaultTimeout;
+        long nanos = (timeout != null && !timeout.isZero() && !timeout.isNegative()) ? timeout.toNanos() : -1;
+
+        Deadline deadline = Deadline.current();
+        if (deadline == null) return nanos;
+        long remaining = deadline.remainingNanos();
+        if (remaining <= 0) throw new QueryTimeoutException("Deadline exceeded before execution");
+        return (nanos < 0) ? remaining : Math.min(nanos, remaining);
+    }
+
+    /**
+     * timeoutNanos 뒤에 statement 를 취소하도록 예약한다. 다 실행했으면 close() 로 해제한다.
+     */
+    static QueryTimeout arm(Statement statement, long timeoutNanos) {
+        if (timeoutNanos < 0) return NONE;
+        return watch(statement, timeoutNanos);
+    }
+
+    /**
+     * arm() 과 같지만 시간 제한이 없어도 cancelNow() 로 취소할 수 있는 핸들을 만든다.
+     */
+    static QueryTimeout watch(Statement statement, long timeoutNanos) {
+        QueryTimeout timeout = new QueryTimeout(statement, timeoutNanos);
+        if (timeoutNanos >= 0) {
+            // cancel() 은 서버 왕복을 하므로 타이머 쓰레드를 막지 않게 가상 쓰레드에서 한다.
+            timeout.scheduled = TIMER.schedule(() -> Thread.startVirtualThread(() -> timeout.fire(true)),
+                    timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return timeout;
+    }
+
+    boolean fired() {
+        return fired;
+    }
+
+    boolean cancelled() {
+        return cancelled;
+    }
+
+    long timeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+    }
+
+    /**
+     * 예약을 해제한다. 취소가 진행 중이면 끝날 때까지 기다려, 반납된 커넥션의 다음 문장이 끊기지 않게 한다.
+     */
+    @Override
+    public void close() {
+        if (this == NONE) return;
+        if (state.compareAndSet(ARMED, DONE)) {
+            if (scheduled != null) scheduled.cancel(false);
+            return;
+        }
+        // cancel() 은 새 연결과 서버 왕복을 하므로 돌며 기다리지 않고 잠든다.
+        boolean interrupted = false;
+        while (state.get() == FIRING) {
+            try {
+                cancelDone.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * 호출한 쓰레드에서 바로 취소한다. 이미 끝났거나 취소 중이면 아무것도 하지 않는다.
+     */
+    void cancelNow() {
+        if (this == NONE) return;
+        fire(false);
+    }
+
+    private void fire(boolean timedOut) {
+        if (!state.compareAndSet(ARMED, FIRING)) return;
+        if (timedOut) {
+            fired = true;
+        } else {
+            cancelled = true;
+        }
+        try {
+            statement.cancel();
+        } catch (SQLException ignored) {
+            // 이미 끝났거나 닫힌 문장이다.
+        } finally {
+            state.set(DONE);
+            cancelDone.countDown();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "simpledb-query-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 대부분 제한 시간 전에 끝나 해제되므로 취소된 예약을 바로 치운다.
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ll.database;
+
+/**
+ * 쿼리 시간 제한이나 요청 기한을 넘겨, 또는 cancel() 로 실행이 취소됐을 때 던진다.
+ */
+public class QueryTimeoutException extends RuntimeException {
+    public QueryTimeoutException(String message) {
+        super(message);
+    }
+
+    public QueryTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
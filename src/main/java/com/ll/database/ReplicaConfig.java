@@ -0,0 +1,34 @@
+package com.ll.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * 읽기 복제본 라우팅 설정
+ */
+@Getter
+@Builder
+@ToString
+public class ReplicaConfig {
+    @Builder.Default
+    private final LoadBalancing loadBalancing = LoadBalancing.ROUND_ROBIN;
+
+    // 복제본 상태(연결, 복제 지연) 확인 주기
+    @Builder.Default
+    private final Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    // 복제 지연이 이보다 크면 읽기에서 뺀다. null 이면 지연은 보지 않는다.
+    @Builder.Default
+    private final Duration maxReplicationLag = Duration.ofSeconds(10);
+
+    // 커넥션을 못 빌린 복제본을 읽기에서 빼두는 시간
+    @Builder.Default
+    private final Duration ejectDuration = Duration.ofSeconds(30);
+
+    public static ReplicaConfig defaults() {
+        return ReplicaConfig.builder().build();
+    }
+}
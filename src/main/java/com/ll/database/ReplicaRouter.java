@@ -0,0 +1,194 @@
+package com.ll.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션 밖의 읽기를 복제본들에 나눠 보낸다.
+ * 커넥션을 못 빌리거나, 상태 확인에 실패하거나, 복제 지연이 큰 복제본은 잠시 빼고
+ * 쓸 수 있는 복제본이 없으면 primary 로 보낸다.
+ */
+class ReplicaRouter implements AutoCloseable {
+    private final ConnectionManager primary;
+    private final List<Replica> replicas;
+    private final ReplicaConfig config;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final LongAdder primaryFallbacks = new LongAdder();
+    private final ScheduledExecutorService healthChecker;
+
+    ReplicaRouter(ConnectionManager primary, List<ConnectionManager> replicaManagers, ReplicaConfig config) {
+        this.primary = primary;
+        this.config = config;
+        this.replicas = replicaManagers.stream().map(Replica::new).toList();
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simpledb-replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getHealthCheckInterval().toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 읽기용 커넥션을 빌린다. 복제본에서 못 빌리면 다음 복제본을, 모두 안 되면 primary 를 쓴다.
+     */
+    Connection borrowForRead() {
+        int attempts = replicas.size();
+        for (int i = 0; i < attempts; i++) {
+            Replica replica = choose();
+            if (replica == null) break;
+            try {
+                Connection connection = replica.manager.getConnection();
+                replica.reads.increment();
+                return connection;
+            } catch (RuntimeException e) {
+                replica.eject(config.getEjectDuration().toNanos(), e.getMessage());
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    List<ReplicaStatus> statuses() {
+        List<ReplicaStatus> statuses = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            statuses.add(new ReplicaStatus(
+                    replica.manager.getUrl(),
+                    replica.isAvailable(System.nanoTime()),
+                    replica.outstanding(),
+                    replica.reads.sum(),
+                    replica.lagSeconds,
+                    replica.lastError
+            ));
+        }
+        return statuses;
+    }
+
+    long primaryFallbacks() {
+        return primaryFallbacks.sum();
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.manager.close();
+        }
+    }
+
+    private Replica choose() {
+        long now = System.nanoTime();
+        int size = replicas.size();
+        int start = Math.floorMod(cursor.getAndIncrement(), size);
+
+        if (config.getLoadBalancing() == LoadBalancing.ROUND_ROBIN) {
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (replica.isAvailable(now)) return replica;
+            }
+            return null;
+        }
+
+        // 같은 값이면 시작 위치를 돌려가며 고르도록 start 부터 훑는다.
+        Replica best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.isAvailable(now)) continue;
+            int outstanding = replica.outstanding();
+            if (outstanding < bestOutstanding) {
+                best = replica;
+                bestOutstanding = outstanding;
+            }
+        }
+        return best;
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            try {
+                replica.check(config);
+            } catch (RuntimeException e) {
+                replica.markUnhealthy(e.getMessage());
+            }
+        }
+    }
+
+    private static class Replica {
+        private final ConnectionManager manager;
+        private final LongAdder reads = new LongAdder();
+        private volatile boolean healthy = true;
+        private volatile long ejectedUntil;
+        private volatile Long lagSeconds;
+        private volatile String lastError;
+
+        Replica(ConnectionManager manager) {
+            this.manager = manager;
+        }
+
+        boolean isAvailable(long now) {
+            return healthy && now - ejectedUntil >= 0;
+        }
+
+        int outstanding() {
+            ConnectionPool pool = manager.getPool();
+            return pool.getActiveCount() + pool.getWaitingCount();
+        }
+
+        void eject(long durationNanos, String reason) {
+            ejectedUntil = System.nanoTime() + durationNanos;
+            lastError = reason;
+        }
+
+        void markUnhealthy(String reason) {
+            healthy = false;
+            lastError = reason;
+        }
+
+        void check(ReplicaConfig config) {
+            try (Connection connection = manager.getConnection()) {
+                Long lag = replicationLag(connection);
+                lagSeconds = lag;
+                if (config.getMaxReplicationLag() != null && lag != null
+                        && lag > config.getMaxReplicationLag().toSeconds()) {
+                    markUnhealthy((lag == Long.MAX_VALUE)
+                            ? "Replication is not running"
+                            : "Replication lag %ds exceeds %ds".formatted(lag, config.getMaxReplicationLag().toSeconds()));
+                    return;
+                }
+                healthy = true;
+                ejectedUntil = 0;
+                lastError = null;
+            } catch (SQLException e) {
+                markUnhealthy(e.getMessage());
+            }
+        }
+
+        // SHOW REPLICA STATUS(8.0.22+) 를 먼저 쓰고, 안 되면 예전 이름으로 다시 묻는다.
+        // 복제 쓰레드가 멈춰 지연이 NULL 이면 큰 값으로 본다. 상태 조회 권한이 없으면 지연은 알 수 없다(null).
+        private static Long replicationLag(Connection connection) {
+            Long lag = queryLag(connection, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+            return (lag != null) ? lag : queryLag(connection, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+        }
+
+        private static Long queryLag(Connection connection, String sql, String column) {
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) return 0L;
+                long lag = resultSet.getLong(column);
+                return resultSet.wasNull() ? Long.MAX_VALUE : lag;
+            } catch (SQLException e) {
+                return null;
+            }
+        }
+    }
+}
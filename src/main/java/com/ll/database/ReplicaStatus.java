@@ -0,0 +1,23 @@
+package com.ll.database;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 읽기 복제본 하나의 현재 상태
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReplicaStatus {
+    private final String url;
+    // 읽기를 받을 수 있는 상태인지
+    private final boolean available;
+    // 빌려간 커넥션 수 + 커넥션을 기다리는 요청 수
+    private final int outstanding;
+    // 이 복제본으로 보낸 읽기 수
+    private final long reads;
+    // 마지막 상태 확인에서 얻은 복제 지연(초), 알 수 없으면 null
+    private final Long lagSeconds;
+    // 마지막으로 빠진 이유, 정상이면 null
+    private final String lastError;
+}
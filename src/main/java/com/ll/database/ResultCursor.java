@@ -0,0 +1,130 @@
+package com.ll.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 결과를 한 행씩 읽어오는 커서
+ * 전체 결과를 메모리에 올리지 않으며, close() 하면 문장과 빌린 커넥션을 돌려준다.
+ * 끝까지 읽으면 스스로 닫힌다.
+ * 쿼리 통계의 fetch 구간은 실행 직후부터 닫힐 때까지이므로 호출자가 행을 처리한 시간도 포함된다.
+ */
+public class ResultCursor<T> implements Iterator<T>, AutoCloseable {
+    private final Connection connection;
+    private final boolean borrowed;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private final ExecutionTrace trace;
+    // 커서가 열려 있는 동안 걸린 시간 제한, 닫을 때 해제한다.
+    private final QueryTimeout timeout;
+    private long rows;
+    private boolean fetched;
+    private boolean hasRow;
+    private boolean closed;
+
+    ResultCursor(Connection connection, boolean borrowed, PreparedStatement statement, ResultSet resultSet,
+                 RowMapper<T> rowMapper, ExecutionTrace trace, QueryTimeout timeout) {
+        this.connection = connection;
+        this.borrowed = borrowed;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.trace = trace;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        if (!fetched) {
+            try {
+                hasRow = resultSet.next();
+            } catch (SQLException e) {
+                trace.failed(e);
+                close();
+                throw fetchFailure(e);
+            }
+            fetched = true;
+            if (!hasRow) close();
+        }
+        return hasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException("No more rows");
+        fetched = false;
+        try {
+            T row = rowMapper.map(resultSet);
+            rows++;
+            return row;
+        } catch (SQLException e) {
+            trace.failed(e);
+            close();
+            throw fetchFailure(e);
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        try {
+            while (hasNext()) {
+                action.accept(next());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 커서를 스트림으로 감싼다. 스트림을 닫으면 커서도 닫힌다.
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        timeout.close();
+        try {
+            resultSet.close();
+        } catch (SQLException ignored) {
+            // 문장을 닫으면서 함께 정리된다.
+        }
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // 커넥션을 돌려줄 때 함께 정리된다.
+        }
+        if (borrowed) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // 풀이 반납 실패한 커넥션을 폐기한다.
+            }
+        }
+        trace.fetchedRows(rows);
+        trace.finish();
+    }
+
+    private RuntimeException fetchFailure(SQLException e) {
+        if (timeout.fired()) {
+            return new QueryTimeoutException("Query timed out after %dms".formatted(timeout.timeoutMillis()), e);
+        }
+        if (timeout.cancelled()) return new QueryTimeoutException("Query cancelled", e);
+        return new RuntimeException("SQL Fetch failed: " + e.getMessage(), e);
+    }
+}
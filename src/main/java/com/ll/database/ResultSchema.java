@@ -0,0 +1,112 @@
+package com.ll.database;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 결과 집합 하나의 컬럼 구성
+ * ResultSetMetaData 는 결과 집합마다 한 번만 읽고, 모든 행(Row)이 이 스키마를 공유한다.
+ */
+public final class ResultSchema {
+    private final String[] labels;
+    private final int[] types;
+    private final Map<String, Integer> indexByLabel;
+    // Map 으로 보일 때의 항목 순서, 같은 라벨이 여러 번 나오면 마지막 컬럼 값을 쓴다.
+    private final int[] entryIndexes;
+
+    private ResultSchema(String[] labels, int[] types) {
+        this.labels = labels;
+        this.types = types;
+
+        Map<String, Integer> lastIndexByLabel = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            lastIndexByLabel.put(labels[i], i);
+        }
+        this.indexByLabel = new HashMap<>(lastIndexByLabel);
+        this.entryIndexes = lastIndexByLabel.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static ResultSchema of(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        int[] types = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        return new ResultSchema(labels, types);
+    }
+
+    public int getColumnCount() {
+        return labels.length;
+    }
+
+    public String getLabel(int index) {
+        return labels[index];
+    }
+
+    /**
+     * 라벨의 0 기반 컬럼 인덱스, 없으면 -1
+     */
+    public int indexOf(Object label) {
+        Integer index = indexByLabel.get(label);
+        return (index != null) ? index : -1;
+    }
+
+    int[] entryIndexes() {
+        return entryIndexes;
+    }
+
+    /**
+     * 현재 행의 값을 컬럼 인덱스로 읽어 Row 로 만든다.
+     */
+    public Row readRow(ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            int column = i + 1;
+            values[i] = switch (types[i]) {
+                case Types.BIGINT -> {
+                    long value = resultSet.getLong(column);
+                    yield resultSet.wasNull() ? null : value;
+                }
+                case Types.TIMESTAMP -> {
+                    Timestamp timestamp = resultSet.getTimestamp(column);
+                    yield (timestamp != null) ? timestamp.toLocalDateTime() : null;
+                }
+                case Types.BOOLEAN -> {
+                    boolean value = resultSet.getBoolean(column);
+                    yield resultSet.wasNull() ? null : value;
+                }
+                default -> resultSet.getObject(column);
+            };
+        }
+        return new Row(this, values);
+    }
+
+    /**
+     * 첫 행에서 스키마를 만들고 이후 행은 그대로 공유하는 RowMapper, 결과 집합 하나에만 쓴다.
+     */
+    static RowMapper<Map<String, Object>> rowMapper() {
+        return new RowMapper<>() {
+            private ResultSchema schema;
+
+            @Override
+            public Map<String, Object> map(ResultSet resultSet) throws SQLException {
+                if (schema == null) schema = ResultSchema.of(resultSet.getMetaData());
+                return schema.readRow(resultSet);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ResultSchema" + Arrays.toString(labels);
+    }
+}
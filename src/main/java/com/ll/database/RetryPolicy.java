@@ -0,0 +1,41 @@
+package com.ll.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * 잠금 충돌(데드락, 잠금 대기 시간 초과)로 실패한 트랜잭션을 다시 시도하는 정책
+ * n 번째 재시도 전에는 min(maxBackoff, initialBackoff * multiplier^(n-1)) 이하의 무작위 시간만큼 쉰다.
+ */
+@Getter
+@Builder
+@ToString
+public class RetryPolicy {
+    // 첫 시도를 포함한 최대 실행 횟수
+    @Builder.Default
+    private final int maxAttempts = 5;
+
+    @Builder.Default
+    private final Duration initialBackoff = Duration.ofMillis(10);
+
+    @Builder.Default
+    private final Duration maxBackoff = Duration.ofSeconds(1);
+
+    @Builder.Default
+    private final double multiplier = 2.0;
+
+    // 첫 시도부터 잰 전체 재시도 예산, 다음 대기가 이를 넘기면 더 시도하지 않는다.
+    @Builder.Default
+    private final Duration maxElapsed = Duration.ofSeconds(10);
+
+    public static RetryPolicy defaults() {
+        return RetryPolicy.builder().build();
+    }
+
+    public static RetryPolicy none() {
+        return RetryPolicy.builder().maxAttempts(1).build();
+    }
+}
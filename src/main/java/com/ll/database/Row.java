@@ -0,0 +1,80 @@
+package com.ll.database;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 조회 결과 한 행
+ * 값은 컬럼 순서대로 배열에 담고, 컬럼 이름은 결과 집합이 공유하는 ResultSchema 에서 찾는다.
+ * 읽기 전용 Map 으로 동작하므로 selectRow()/selectRows() 의 기존 사용법이 그대로 유지된다.
+ */
+public final class Row extends AbstractMap<String, Object> {
+    private final ResultSchema schema;
+    private final Object[] values;
+
+    Row(ResultSchema schema, Object[] values) {
+        this.schema = schema;
+        this.values = values;
+    }
+
+    public ResultSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * 0 기반 컬럼 인덱스로 값을 읽는다.
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = schema.indexOf(key);
+        return (index >= 0) ? values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return schema.indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return schema.entryIndexes().length;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                int[] entryIndexes = schema.entryIndexes();
+                return new Iterator<>() {
+                    private int cursor;
+
+                    @Override
+                    public boolean hasNext() {
+                        return cursor < entryIndexes.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        int index = entryIndexes[cursor++];
+                        return new SimpleImmutableEntry<>(schema.getLabel(index), values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Row.this.size();
+            }
+        };
+    }
+}
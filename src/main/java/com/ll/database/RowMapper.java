@@ -0,0 +1,12 @@
+package com.ll.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ResultSet 의 현재 행을 객체 하나로 변환
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet resultSet) throws SQLException;
+}
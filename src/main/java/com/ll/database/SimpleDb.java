@@ -1,40 +1,381 @@
 package com.ll.database;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.SneakyThrows;
 
+import java.lang.invoke.MethodHandle;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Getter
 @Setter
-@RequiredArgsConstructor
-public class SimpleDb {
+public class SimpleDb implements AutoCloseable {
     private final ConnectionManager connectionManager;
+    // 읽기 복제본이 없으면 null, 이때 모든 문장은 connectionManager 로 간다.
+    @Getter(AccessLevel.NONE)
+    private final ReplicaRouter replicaRouter;
     private final DevLogger devLogger;
     private boolean devMode;
-    private Connection transactionConnection;
+    // 트랜잭션은 호출한 쓰레드에 묶인다. 쓰레드마다 풀에서 빌린 자기 커넥션을 쓴다.
+    @Getter(AccessLevel.NONE)
+    private final ThreadLocal<TransactionContext> transaction = new ThreadLocal<>();
+    // 비동기 쿼리는 가상 쓰레드에서 실행하고, 동시 실행 수는 풀 크기로 제한한다.
+    @Getter(AccessLevel.NONE)
+    private final AsyncExecutor asyncExecutor;
+    // enableQueryCache() 로 켜는 SELECT 결과 캐시, 꺼져 있으면 null
+    @Setter(AccessLevel.NONE)
+    private volatile QueryCache queryCache;
+    // enableEntityCache() 로 켜는 (클래스, id) 엔티티 캐시, 꺼져 있으면 null
+    @Setter(AccessLevel.NONE)
+    private volatile EntityCache entityCache;
+    // enableQueryMetrics() 로 켜는 SQL 모양별 실행 통계, 꺼져 있으면 null
+    @Setter(AccessLevel.NONE)
+    private volatile QueryMetrics queryMetrics;
+    // enableSlowQueryLog() 로 켜는 느린 쿼리 로그, 꺼져 있으면 null
+    @Setter(AccessLevel.NONE)
+    private volatile SlowQueryLog slowQueryLog;
+    // 문장 실행이 끝날 때 알림을 받는 리스너들, 비어 있으면 실행 기록을 만들지 않는다.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final List<QueryListener> queryListeners = new CopyOnWriteArrayList<>();
+    // 시간 제한을 따로 주지 않은 문장의 실행 시간 제한, null 이면 제한이 없다.
+    private volatile Duration defaultQueryTimeout;
+    // inTransaction() 의 커밋/롤백과 재시도 통계
+    @Setter(AccessLevel.NONE)
+    private final TransactionStats transactionStats = new TransactionStats();
+    // 생성할 때 고른 드라이버 속성 묶음과 최종 속성, ConnectionManager 를 직접 넘겨 만들었으면 null
+    @Setter(AccessLevel.NONE)
+    private JdbcProfile jdbcProfile;
+    @Setter(AccessLevel.NONE)
+    private JdbcOptions jdbcOptions;
+    // 닫히지 않은 쓰기 지연 기록기, close() 에서 남은 행을 쓰고 닫는다.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final List<InsertCoalescer> insertCoalescers = new CopyOnWriteArrayList<>();
+
+    public SimpleDb(ConnectionManager connectionManager, DevLogger devLogger) {
+        this(connectionManager, List.of(), ReplicaConfig.defaults(), devLogger);
+    }
+
+    /**
+     * 쓰기와 트랜잭션은 primary 로, 트랜잭션 밖의 조회는 replicas 로 나눠 보낸다.
+     * 복제본은 비동기로 따라오므로 방금 쓴 값을 바로 읽어야 하면 트랜잭션 안에서 읽는다.
+     */
+    public SimpleDb(ConnectionManager connectionManager, List<ConnectionManager> replicas, ReplicaConfig replicaConfig, DevLogger devLogger) {
+        this.connectionManager = connectionManager;
+        this.replicaRouter = replicas.isEmpty() ? null : new ReplicaRouter(connectionManager, replicas, replicaConfig);
+        this.devLogger = devLogger;
+        this.devMode = devLogger.isDevMode();
+        this.asyncExecutor = new AsyncExecutor(connectionManager.getPool().getConfig().getMaxSize());
+    }
 
     public SimpleDb(String host, String user, String password, String dbName, boolean devMode) {
-        String url = String.format("jdbc:mysql://%s:3306/%s", host, dbName);
-        this.connectionManager = new ConnectionManager(url, user, password);
+        this(host, user, password, dbName, devMode, PoolConfig.defaults());
+    }
+
+    public SimpleDb(String host, String user, String password, String dbName, boolean devMode, PoolConfig poolConfig) {
+        // 드라이버 속성은 builder() 의 기본 프로필과 같다.
+        this(new ConnectionManager(
+                jdbcUrl(host, Builder.DEFAULT_PORT, dbName),
+                user, password, JdbcProfile.DEFAULT.options().toProperties(), poolConfig
+        ), new DevLogger(devMode));
+        this.jdbcProfile = JdbcProfile.DEFAULT;
+        this.jdbcOptions = JdbcProfile.DEFAULT.options();
+    }
+
+    /**
+     * 접속 정보와 드라이버 속성을 골라 SimpleDb 를 만든다.
+     * 드라이버 속성은 profile 로 고른 묶음에서 시작해 jdbcOptions 로 바꾼 값이 우선한다.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static String jdbcUrl(String host, int port, String dbName) {
+        return "jdbc:mysql://%s:%d/%s".formatted(host, port, dbName);
+    }
+
+    // 이후 만들어지는 Sql 과 run() 의 로그 출력 여부를 함께 바꾼다.
+    public void setDevMode(boolean devMode) {
         this.devMode = devMode;
-        this.devLogger = new DevLogger(devMode);
-        transactionConnection = connectionManager.getConnection();
+        devLogger.setDevMode(devMode);
     }
 
     public Sql genSql() {
-        Sql sql = (transactionConnection != null)
-                ? new Sql(transactionConnection, devLogger)
+        TransactionContext context = transaction.get();
+        Sql sql = (context != null)
+                ? new Sql(context.connection(), devLogger)
                 : new Sql(connectionManager, devLogger);
         sql.setDevMode(devMode);
+        sql.setSimpleDb(this);
+        return sql;
+    }
+
+    /**
+     * SQL 을 한 번 컴파일해 여러 번, 여러 쓰레드에서 실행할 수 있는 Query 로 만든다.
+     */
+    public Query compile(String sql) {
+        return new Query(this, sql);
+    }
+
+    /**
+     * table 의 columns 에 넣는 단건 INSERT 를 모아 여러 행 INSERT 와 커밋 한 번으로 쓰는 기록기를 만든다.
+     * 다 쓰면 close() 한다. 닫지 않은 기록기는 SimpleDb 를 닫을 때 남은 행을 쓰고 닫힌다.
+     */
+    public InsertCoalescer insertCoalescer(String table, List<String> columns) {
+        return insertCoalescer(table, columns, InsertCoalescerConfig.defaults());
+    }
+
+    public InsertCoalescer insertCoalescer(String table, List<String> columns, InsertCoalescerConfig config) {
+        InsertCoalescer coalescer = new InsertCoalescer(this, table, columns, config);
+        insertCoalescers.add(coalescer);
+        return coalescer;
+    }
+
+    void insertCoalescerClosed(InsertCoalescer coalescer) {
+        insertCoalescers.remove(coalescer);
+    }
+
+    /**
+     * 증가하는 keyColumn 을 기준으로 baseQuery 의 결과를 페이지 단위로 읽는다.
+     * baseQuery 는 ORDER BY, LIMIT 없이 SELECT ... FROM ... [WHERE ...] 형태로 쓰고, keyColumn 을 반드시 조회해야 한다.
+     */
+    public <T> KeysetScan<T> keysetScan(Class<T> type, String keyColumn, String baseQuery, Object... params) {
+        return new KeysetScan<>(this, () -> EntityMapper.of(type).rowMapper(), keyColumn, baseQuery, params);
+    }
+
+    public KeysetScan<Map<String, Object>> keysetScan(String keyColumn, String baseQuery, Object... params) {
+        return new KeysetScan<>(this, ResultSchema::rowMapper, keyColumn, baseQuery, params);
+    }
+
+    /**
+     * rows 를 LOAD DATA LOCAL INFILE 로 한 번에 넣는다. 각 행은 columns 순서의 값 배열이다.
+     * 행은 드라이버가 읽는 대로 인코딩되어 전송되므로 임시 파일을 만들지 않는다.
+     * 드라이버 속성 allowLoadLocalInfile=true (JdbcProfile.BULK_LOAD) 가 필요하며, 트랜잭션 안이면 그 커넥션으로 실행한다.
+     */
+    public BulkLoadResult bulkLoad(String table, List<String> columns, Stream<Object[]> rows) {
+        try (rows) {
+            return BulkLoader.load(this, table, columns, rows.iterator());
+        }
+    }
+
+    /**
+     * 엔티티들의 columns 에 해당하는 필드 값을 LOAD DATA LOCAL INFILE 로 넣는다.
+     */
+    public <T> BulkLoadResult bulkLoad(String table, List<String> columns, Class<T> type, Stream<T> entities) {
+        EntityMapper<T> mapper = EntityMapper.of(type);
+        MethodHandle[] getters = columns.stream().map(mapper::getterOf).toArray(MethodHandle[]::new);
+        return bulkLoad(table, columns, entities.map(entity -> {
+            Object[] values = new Object[getters.length];
+            for (int i = 0; i < getters.length; i++) {
+                try {
+                    values[i] = (Object) getters[i].invokeExact((Object) entity);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Cannot read %s from %s".formatted(columns.get(i), type.getName()), e);
+                }
+            }
+            return values;
+        }));
+    }
+
+    /**
+     * 정수 주키 범위로 나눠 여러 커넥션에서 동시에 읽는 테이블 스캔
+     */
+    public <T> ParallelScan<T> parallelScan(Class<T> type, String table, String keyColumn) {
+        return new ParallelScan<>(this, () -> EntityMapper.of(type).rowMapper(), table, keyColumn);
+    }
+
+    public ParallelScan<Map<String, Object>> parallelScan(String table, String keyColumn) {
+        return new ParallelScan<>(this, ResultSchema::rowMapper, table, keyColumn);
+    }
+
+    // 컴파일된 Query 의 실행 한 번에 쓰는 Sql
+    Sql genSql(String compiledSql, Object[] args) {
+        TransactionContext context = transaction.get();
+        Sql sql = (context != null)
+                ? new Sql(null, context.connection(), devLogger, compiledSql, args)
+                : new Sql(connectionManager, null, devLogger, compiledSql, args);
+        sql.setSimpleDb(this);
         return sql;
     }
 
+    /**
+     * SELECT 결과 캐시를 켠다. 트랜잭션 밖의 조회만 캐시하며,
+     * 테이블에 쓰기가 일어나면(트랜잭션 안이면 커밋할 때) 그 테이블의 항목을 무효화한다.
+     * 캐시가 켜진 동안 selectRows() 결과 리스트는 읽기 전용이다.
+     */
+    public QueryCache enableQueryCache(int maxSize, Duration ttl) {
+        QueryCache cache = new QueryCache(maxSize, ttl);
+        this.queryCache = cache;
+        return cache;
+    }
+
+    public void disableQueryCache() {
+        this.queryCache = null;
+    }
+
+    /**
+     * 엔티티 캐시를 켠다. 캐시할 클래스는 돌려받은 캐시에 register() 한다.
+     * 트랜잭션 밖에서 selectRow(클래스) 로 하는 id 조회만 캐시에서 읽는다.
+     */
+    public EntityCache enableEntityCache(int maxSize) {
+        EntityCache cache = new EntityCache(maxSize);
+        this.entityCache = cache;
+        return cache;
+    }
+
+    public void disableEntityCache() {
+        this.entityCache = null;
+    }
+
+    /**
+     * SQL 모양별 실행 통계를 켜고 JMX 에 com.ll.database:type=QueryMetrics,name={name} 으로 등록한다.
+     * 이미 켜져 있으면 기존 통계를 돌려준다.
+     */
+    public synchronized QueryMetrics enableQueryMetrics(String name) {
+        if (queryMetrics != null) return queryMetrics;
+        QueryMetrics metrics = new QueryMetrics();
+        metrics.register(name);
+        queryListeners.add(metrics);
+        this.queryMetrics = metrics;
+        return metrics;
+    }
+
+    public synchronized void disableQueryMetrics() {
+        QueryMetrics metrics = queryMetrics;
+        if (metrics == null) return;
+        queryListeners.remove(metrics);
+        metrics.unregister();
+        this.queryMetrics = null;
+    }
+
+    /**
+     * threshold 이상 걸린 실행을 기록하는 느린 쿼리 로그를 켠다.
+     */
+    public SlowQueryLog enableSlowQueryLog(Duration threshold) {
+        return enableSlowQueryLog(SlowQueryLogConfig.builder().threshold(threshold).build());
+    }
+
+    /**
+     * 느린 쿼리 로그를 켠다. 이미 켜져 있으면 새 설정으로 바꾼다.
+     */
+    public synchronized SlowQueryLog enableSlowQueryLog(SlowQueryLogConfig config) {
+        disableSlowQueryLog();
+        SlowQueryLog log = new SlowQueryLog(this, config);
+        queryListeners.add(log);
+        this.slowQueryLog = log;
+        return log;
+    }
+
+    public synchronized void disableSlowQueryLog() {
+        SlowQueryLog log = slowQueryLog;
+        if (log == null) return;
+        queryListeners.remove(log);
+        log.close();
+        this.slowQueryLog = null;
+    }
+
+    // 지금 켜져 있는 리스너들, 없으면 빈 리스트
+    List<QueryListener> activeQueryListeners() {
+        if (queryListeners.isEmpty()) return List.of();
+        List<QueryListener> active = null;
+        for (QueryListener listener : queryListeners) {
+            if (!listener.isActive()) continue;
+            if (active == null) active = new ArrayList<>(queryListeners.size());
+            active.add(listener);
+        }
+        return (active != null) ? active : List.of();
+    }
+
+    // 트랜잭션 밖의 조회에 쓸 커넥션, 복제본이 없으면 primary 에서 빌린다.
+    Connection readConnection() {
+        return (replicaRouter != null) ? replicaRouter.borrowForRead() : connectionManager.getConnection();
+    }
+
+    public List<ReplicaStatus> getReplicaStatuses() {
+        return (replicaRouter != null) ? replicaRouter.statuses() : List.of();
+    }
+
+    // 쓸 수 있는 복제본이 없어 primary 로 보낸 읽기 수
+    public long getReplicaFallbacks() {
+        return (replicaRouter != null) ? replicaRouter.primaryFallbacks() : 0;
+    }
+
+    AsyncExecutor asyncExecutor() {
+        return asyncExecutor;
+    }
+
+    void afterWrite(String sql) {
+        afterWrite(sql, null);
+    }
+
+    // 쓰기 문장이 실행된 뒤 호출된다. 트랜잭션 안이면 커밋까지 무효화를 미룬다.
+    // params 는 엔티티 캐시가 id 를 찾는 데 쓰며, 알 수 없으면 null 이다.
+    void afterWrite(String sql, Object[] params) {
+        TransactionContext context = transaction.get();
+
+        EntityCache entities = entityCache;
+        Runnable invalidation = (entities != null) ? entities.invalidationFor(sql, params) : null;
+        if (invalidation != null) {
+            if (context != null) context.afterCommit().add(invalidation);
+            else invalidation.run();
+        }
+
+        QueryCache cache = queryCache;
+        if (cache == null) return;
+
+        Set<String> tables = SqlTables.of(sql);
+        if (context != null) {
+            context.writtenTables().addAll(tables);
+        } else {
+            cache.invalidate(tables);
+        }
+    }
+
+    /**
+     * 작업 하나를 가상 쓰레드에서 실행한다. 작업 안에서 genSql() 을 여러 번 써도 된다.
+     * 작업 안에서 다시 async() 나 *Async() 를 부르면 남은 허가가 있을 때는 따로 실행되고, 없으면 호출한 쓰레드에서 바로 실행된다.
+     */
+    public <T> CompletableFuture<T> async(Supplier<T> work) {
+        return asyncExecutor.submit(work);
+    }
+
+    /**
+     * 서로 독립적인 쿼리들을 동시에 실행하고, 가장 느린 쿼리가 끝나면 입력 순서대로 결과를 돌려준다.
+     */
+    @SafeVarargs
+    public final <T> CompletableFuture<List<T>> allOf(Supplier<? extends T>... queries) {
+        List<CompletableFuture<? extends T>> futures = new ArrayList<>(queries.length);
+        for (Supplier<? extends T> query : queries) {
+            futures.add(asyncExecutor.submit(query));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().<T>map(CompletableFuture::join).toList());
+    }
+
+    public CompletableFuture<Void> runAsync(String sql, Object... params) {
+        return asyncExecutor.submit(() -> {
+            run(sql, params);
+            return null;
+        });
+    }
+
     /**
      * 파라미터 없이 간단한 SQL 실행 메서드
      * @param sql 실행할 SQL 쿼리 문자열
@@ -44,54 +385,333 @@ public class SimpleDb {
     }
 
     public void run(String sql, Object... params) {
-        if (devMode) {
-            System.out.printf("[DEV MODE] Executing SQL: %s%n", sql);
-            if (params.length > 0) {
-                System.out.printf("[DEV MODE] With Parameters: %s%n", Arrays.toString(params));
-            }
-        }
+        devLogger.logQuery(sql, params);
 
-        try (
-                Connection connection = connectionManager.getConnection();
-                PreparedStatement preparedStatement = connection.prepareStatement(sql) 
-        ) {
+        long timeoutNanos = QueryTimeout.resolveNanos(null, defaultQueryTimeout);
+        ExecutionTrace trace = ExecutionTrace.begin(this, sql, params);
+        TransactionContext context = transaction.get();
+        boolean borrowed = (context == null);
+        Connection connection = null;
+
+        PreparedStatement preparedStatement = null;
+        QueryTimeout queryTimeout = QueryTimeout.NONE;
+        boolean failed = false;
+        try {
+            connection = borrowed ? connectionManager.getConnection() : context.connection();
+            trace.acquired();
+            preparedStatement = StatementCache.prepare(connection, sql, Statement.NO_GENERATED_KEYS);
             for (int i = 0; i < params.length; i++) {
                 preparedStatement.setObject(i + 1, params[i]);
             }
+            trace.prepared();
+            queryTimeout = QueryTimeout.arm(preparedStatement, timeoutNanos);
 
-            System.out.println("[DEBUG] Executing statement: " + preparedStatement);
             preparedStatement.execute();
+            trace.executed();
+            trace.affected(Math.max(preparedStatement.getUpdateCount(), 0));
+            if (!SqlTables.isRead(sql)) afterWrite(sql, params);
         } catch (SQLException e) {
+            failed = true;
+            trace.failed(e);
+            PooledConnection.markBrokenIfFatal(connection, e);
+            if (queryTimeout.fired()) {
+                throw new QueryTimeoutException("Query timed out after %dms".formatted(queryTimeout.timeoutMillis()), e);
+            }
             throw new RuntimeException("Error executing SQL: " + sql, e);
+        } catch (RuntimeException e) {
+            trace.failed(e);
+            throw e;
+        } finally {
+            queryTimeout.close();
+            if (preparedStatement != null) {
+                StatementCache.release(connection, sql, Statement.NO_GENERATED_KEYS, preparedStatement, failed);
+            }
+            if (borrowed && connection != null) closeQuietly(connection);
+            trace.finish();
         }
     }
 
+    TransactionContext currentTransaction() {
+        return transaction.get();
+    }
+
+    /**
+     * callback 을 트랜잭션 안에서 실행하고 커밋한다. 예외가 나면 롤백하고 커넥션은 항상 반납한다.
+     * 데드락(1213)이나 잠금 대기 시간 초과(1205)로 실패하면 기본 RetryPolicy 로 처음부터 다시 실행한다.
+     */
+    public <T> T inTransaction(TransactionCallback<T> callback) {
+        return inTransaction(RetryPolicy.defaults(), callback);
+    }
+
+    /**
+     * 이미 트랜잭션 안이면 바깥 트랜잭션에 합류해 callback 만 실행한다. 이때는 다시 시도하지 않는다.
+     */
+    public <T> T inTransaction(RetryPolicy retryPolicy, TransactionCallback<T> callback) {
+        if (transaction.get() != null) return invoke(callback);
+
+        long startedAt = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                startTransaction();
+            } catch (Exception e) {
+                throw unchecked("Could not start transaction", e);
+            }
+            try {
+                T result = invoke(callback);
+                commit();
+                transactionStats.recordCommit();
+                return result;
+            } catch (Error e) {
+                rollbackAfter(e);
+                throw e;
+            } catch (Exception e) {
+                // commit() 은 SQLException 을 그대로 던진다. COMMIT 에서 난 데드락도 여기서 다시 시도한다.
+                rollbackAfter(e);
+                RuntimeException failure = unchecked("Transaction commit failed", e);
+
+                SQLException conflict = TransactionStats.lockConflictOf(e);
+                if (conflict == null) throw failure;
+                long backoffNanos = backoffNanos(retryPolicy, attempt);
+                if (attempt >= retryPolicy.getMaxAttempts()
+                        || System.nanoTime() - startedAt + backoffNanos > retryPolicy.getMaxElapsed().toNanos()) {
+                    transactionStats.recordExhausted();
+                    throw failure;
+                }
+                devLogger.logEvent("잠금 충돌로 트랜잭션 재시도 (%d/%d): %s"
+                        .formatted(attempt, retryPolicy.getMaxAttempts(), conflict.getMessage()));
+                sleepNanos(backoffNanos, failure);
+                transactionStats.recordRetry(conflict, backoffNanos);
+            }
+        }
+    }
+
+    private static RuntimeException unchecked(String message, Exception e) {
+        return (e instanceof RuntimeException runtimeException) ? runtimeException : new RuntimeException(message, e);
+    }
+
+    // 커밋 전 실패면 아직 열려 있는 트랜잭션을 롤백한다.
+    private void rollbackAfter(Throwable failure) {
+        if (transaction.get() != null) {
+            try {
+                rollback();
+            } catch (Exception rollbackFailure) {
+                failure.addSuppressed(rollbackFailure);
+            }
+        }
+        transactionStats.recordRollback();
+    }
+
+    private <T> T invoke(TransactionCallback<T> callback) {
+        try {
+            return callback.doInTransaction(this);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Transaction callback failed", e);
+        }
+    }
+
+    // 지수적으로 늘어나는 상한 안에서 무작위로 고른다. (full jitter)
+    private static long backoffNanos(RetryPolicy retryPolicy, int attempt) {
+        double ceiling = retryPolicy.getInitialBackoff().toNanos() * Math.pow(retryPolicy.getMultiplier(), attempt - 1);
+        long bound = (long) Math.min(ceiling, retryPolicy.getMaxBackoff().toNanos());
+        return (bound <= 0) ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static void sleepNanos(long nanos, RuntimeException failure) {
+        if (nanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
+    public boolean isInTransaction() {
+        return transaction.get() != null;
+    }
+
     @SneakyThrows
     public void startTransaction() {
-        if(transactionConnection != null) {
-            transactionConnection = connectionManager.getConnection();
-            transactionConnection.setAutoCommit(false);
-            System.out.println("트랜잭션 시작");
+        if (transaction.get() != null) {
+            throw new IllegalStateException("Transaction already started on this thread");
+        }
+        Connection connection = connectionManager.getConnection();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw e;
         }
+        transaction.set(new TransactionContext(connection));
+        devLogger.logEvent("트랜잭션 시작");
     }
 
     @SneakyThrows
     public void rollback() {
-        if(transactionConnection != null) {
-            transactionConnection.rollback();
-            transactionConnection.close();
-            transactionConnection = null;
-            System.out.println("롤백");
+        TransactionContext context = transaction.get();
+        if (context == null) return;
+        try {
+            context.connection().rollback();
+            devLogger.logEvent("롤백");
+        } finally {
+            endTransaction(context);
         }
     }
 
     @SneakyThrows
     public void commit() {
-        if(transactionConnection != null) {
-            transactionConnection.commit();
-            transactionConnection.close();
-            transactionConnection = null;
-            System.out.println("커밋");
+        TransactionContext context = transaction.get();
+        if (context == null) return;
+        try {
+            context.connection().commit();
+            devLogger.logEvent("커밋");
+
+            QueryCache cache = queryCache;
+            if (cache != null) cache.invalidate(context.writtenTables());
+            context.afterCommit().forEach(Runnable::run);
+        } finally {
+            endTransaction(context);
+        }
+    }
+
+    // 커넥션을 풀에 돌려주고 쓰레드와의 연결을 끊는다.
+    private void endTransaction(TransactionContext context) {
+        transaction.remove();
+        closeQuietly(context.connection());
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 풀 반납 실패는 풀이 커넥션을 폐기하는 것으로 처리된다.
+        }
+    }
+
+    // 커넥션 풀을 닫는다.
+    @Override
+    public void close() {
+        insertCoalescers.forEach(InsertCoalescer::close);
+        disableQueryMetrics();
+        disableSlowQueryLog();
+        asyncExecutor.close();
+        if (replicaRouter != null) replicaRouter.close();
+        connectionManager.close();
+        devLogger.close();
+    }
+
+    public static class Builder {
+        static final int DEFAULT_PORT = 3306;
+
+        private String host = "localhost";
+        private int port = DEFAULT_PORT;
+        private String database;
+        private String user;
+        private String password;
+        private boolean devMode;
+        private PoolConfig poolConfig = PoolConfig.defaults();
+        private Duration defaultQueryTimeout;
+        private JdbcProfile profile = JdbcProfile.DEFAULT;
+        private final List<Consumer<JdbcOptions.JdbcOptionsBuilder>> customizers = new ArrayList<>();
+        private final List<ReplicaAddress> replicas = new ArrayList<>();
+        private ReplicaConfig replicaConfig = ReplicaConfig.defaults();
+
+        private Builder() {
+        }
+
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder database(String database) {
+            this.database = database;
+            return this;
+        }
+
+        public Builder user(String user) {
+            this.user = user;
+            return this;
+        }
+
+        public Builder password(String password) {
+            this.password = password;
+            return this;
+        }
+
+        public Builder devMode(boolean devMode) {
+            this.devMode = devMode;
+            return this;
+        }
+
+        public Builder defaultQueryTimeout(Duration defaultQueryTimeout) {
+            this.defaultQueryTimeout = defaultQueryTimeout;
+            return this;
+        }
+
+        public Builder poolConfig(PoolConfig poolConfig) {
+            this.poolConfig = poolConfig;
+            return this;
+        }
+
+        public Builder profile(JdbcProfile profile) {
+            this.profile = profile;
+            return this;
+        }
+
+        // profile 의 속성 위에 덮어쓸 값들, 여러 번 호출하면 차례로 적용된다.
+        public Builder jdbcOptions(Consumer<JdbcOptions.JdbcOptionsBuilder> customizer) {
+            customizers.add(customizer);
+            return this;
+        }
+
+        /**
+         * 트랜잭션 밖의 조회를 받을 읽기 복제본, 데이터베이스 이름과 계정, 드라이버 속성, 풀 설정은 primary 와 같다.
+         */
+        public Builder replica(String host) {
+            return replica(host, DEFAULT_PORT);
+        }
+
+        public Builder replica(String host, int port) {
+            replicas.add(new ReplicaAddress(host, port));
+            return this;
+        }
+
+        public Builder replicaConfig(ReplicaConfig replicaConfig) {
+            this.replicaConfig = replicaConfig;
+            return this;
+        }
+
+        public SimpleDb build() {
+            if (database == null) throw new IllegalStateException("Database name is required.");
+
+            JdbcOptions.JdbcOptionsBuilder optionsBuilder = profile.options().toBuilder();
+            customizers.forEach(customizer -> customizer.accept(optionsBuilder));
+            JdbcOptions options = optionsBuilder.build();
+
+            ConnectionManager connectionManager = new ConnectionManager(
+                    jdbcUrl(host, port, database), user, password, options.toProperties(), poolConfig);
+            List<ConnectionManager> replicaManagers = replicas.stream()
+                    .map(replica -> new ConnectionManager(
+                            jdbcUrl(replica.host(), replica.port(), database), user, password, options.toProperties(), poolConfig))
+                    .toList();
+            SimpleDb simpleDb = new SimpleDb(connectionManager, replicaManagers, replicaConfig, new DevLogger(devMode));
+            simpleDb.jdbcProfile = profile;
+            simpleDb.jdbcOptions = options;
+            simpleDb.defaultQueryTimeout = defaultQueryTimeout;
+            simpleDb.devLogger.logEvent("JDBC 프로필 %s: %s".formatted(profile, options.toProperties()));
+            return simpleDb;
+        }
+
+        private record ReplicaAddress(String host, int port) {
         }
     }
 }
\ No newline at end of file
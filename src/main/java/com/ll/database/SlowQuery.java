@@ -0,0 +1,53 @@
+package com.ll.database;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 느린 쿼리 한 건의 기록
+ */
+@Getter
+public class SlowQuery {
+    private final LocalDateTime occurredAt;
+    private final String shape;
+    private final String sql;
+    private final List<String> params;
+    private final long durationNanos;
+    private final long rowsReturned;
+    private final long rowsAffected;
+    private final String error;
+    // 쿼리를 실행한 애플리케이션 코드 위치 (라이브러리 밖의 첫 호출 프레임)
+    private final String callSite;
+    // EXPLAIN 결과, 켜져 있을 때 백그라운드에서 채워진다.
+    private volatile List<Map<String, Object>> explain;
+
+    SlowQuery(LocalDateTime occurredAt, String shape, String sql, List<String> params, long durationNanos,
+              long rowsReturned, long rowsAffected, String error, String callSite) {
+        this.occurredAt = occurredAt;
+        this.shape = shape;
+        this.sql = sql;
+        this.params = params;
+        this.durationNanos = durationNanos;
+        this.rowsReturned = rowsReturned;
+        this.rowsAffected = rowsAffected;
+        this.error = error;
+        this.callSite = callSite;
+    }
+
+    public Duration getDuration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    void setExplain(List<Map<String, Object>> explain) {
+        this.explain = explain;
+    }
+
+    @Override
+    public String toString() {
+        return "%dms %s %s at %s".formatted(getDuration().toMillis(), sql, params, callSite);
+    }
+}
@@ -0,0 +1,259 @@
+package com.ll.database;
+
+import com.ll.standard.util.Ut;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 기준 시간보다 오래 걸린 실행을 기록하는 느린 쿼리 로그
+ * 가장 느린 N 건을 메모리에 보관하고, 설정하면 JSON 한 줄씩 파일에도 남긴다.
+ * EXPLAIN 과 파일 기록은 별도 쓰레드에서 하므로 느린 쿼리를 실행한 쓰레드는 호출 위치만 찾고 돌아간다.
+ */
+public class SlowQueryLog implements QueryListener, AutoCloseable {
+    // 느린 쿼리가 몰려도 EXPLAIN 과 파일 기록이 끝없이 쌓이지 않게 한다. 넘치면 버린다.
+    private static final int MAX_PENDING = 1000;
+    private static final int MAX_EXPLAIN_SHAPES = 1000;
+    // 실행 경로에 올라오는 라이브러리 클래스, 호출 위치를 찾을 때 건너뛴다.
+    // 같은 패키지나 같은 jar 에 있는 사용자 코드(테스트, fat jar)는 건너뛰지 않도록 위치나 패키지로 가리지 않는다.
+    private static final Set<Class<?>> LIBRARY_CLASSES = Set.of(
+            SimpleDb.class, Sql.class, Query.class, ResultCursor.class, KeysetScan.class, ParallelScan.class,
+            InsertCoalescer.class, BulkLoader.class, EntityCache.class, EntityMapper.class, ResultSchema.class,
+            AsyncExecutor.class, Deadline.class, ExecutionTrace.class, SlowQueryLog.class, QueryMetrics.class,
+            ReplicaRouter.class, StatementCache.class, QueryTimeout.class
+    );
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final SimpleDb simpleDb;
+    private final SlowQueryLogConfig config;
+    private final long thresholdNanos;
+    // 가장 덜 느린 기록이 맨 앞에 오는 힙, topN 을 넘으면 맨 앞을 버린다.
+    private final PriorityQueue<SlowQuery> slowest = new PriorityQueue<>(Comparator.comparingLong(SlowQuery::getDurationNanos));
+    private final Map<String, Long> lastExplainedAt = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor worker;
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private BufferedWriter writer;
+    private volatile boolean enabled = true;
+
+    SlowQueryLog(SimpleDb simpleDb, SlowQueryLogConfig config) {
+        if (config.getTopN() <= 0) throw new IllegalArgumentException("Invalid slow query log size: " + config);
+        this.simpleDb = simpleDb;
+        this.config = config;
+        this.thresholdNanos = config.getThreshold().toNanos();
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "simpledb-slow-query-log");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> discarded.increment());
+    }
+
+    @Override
+    public boolean isActive() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void onExecution(ExecutionTrace trace) {
+        if (trace.totalNanos() < thresholdNanos) return;
+
+        SlowQuery slowQuery = new SlowQuery(
+                LocalDateTime.now(),
+                SqlShape.of(trace.sql()),
+                trace.sql(),
+                maskedParams(trace.sql(), trace.params()),
+                trace.totalNanos(),
+                trace.rowsReturned(),
+                trace.rowsAffected(),
+                (trace.error() != null) ? trace.error().toString() : null,
+                callSite()
+        );
+        recorded.increment();
+        synchronized (slowest) {
+            slowest.offer(slowQuery);
+            if (slowest.size() > config.getTopN()) slowest.poll();
+        }
+
+        boolean explain = config.isExplain() && trace.error() == null && SqlTables.isRead(trace.sql())
+                && tryAcquireExplain(slowQuery.getShape());
+        if (!explain && config.getLogFile() == null) return;
+
+        Object[] params = trace.params();
+        worker.execute(() -> {
+            if (explain) slowQuery.setExplain(explain(slowQuery.getSql(), params));
+            if (config.getLogFile() != null) append(slowQuery);
+        });
+    }
+
+    /**
+     * 가장 느린 순서로 정렬된 기록
+     */
+    public List<SlowQuery> getSlowest() {
+        List<SlowQuery> snapshot;
+        synchronized (slowest) {
+            snapshot = new ArrayList<>(slowest);
+        }
+        snapshot.sort(Comparator.comparingLong(SlowQuery::getDurationNanos).reversed());
+        return snapshot;
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    // 대기열이 넘쳐 EXPLAIN 이나 파일 기록을 못 한 건수
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    public void clear() {
+        synchronized (slowest) {
+            slowest.clear();
+        }
+    }
+
+    /**
+     * 지금까지 요청된 EXPLAIN 과 파일 기록이 끝날 때까지 최대 timeout 만큼 기다린다.
+     */
+    public boolean flush(Duration timeout) {
+        try {
+            Future<?> marker = worker.submit(() -> {
+            });
+            marker.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // 이미 닫힌 파일은 무시한다.
+                }
+                writer = null;
+            }
+        }
+    }
+
+    private List<String> maskedParams(String sql, Object[] params) {
+        List<String> masked = new ArrayList<>(params.length);
+        for (int i = 0; i < params.length; i++) {
+            masked.add(Objects.toString(config.getParamMasker().mask(sql, i, params[i])));
+        }
+        return masked;
+    }
+
+    // 같은 모양의 SQL 은 explainInterval 에 한 번만 EXPLAIN 한다.
+    private boolean tryAcquireExplain(String shape) {
+        long now = System.nanoTime();
+        long interval = config.getExplainInterval().toNanos();
+        if (lastExplainedAt.size() >= MAX_EXPLAIN_SHAPES) lastExplainedAt.clear();
+
+        boolean[] acquired = {false};
+        lastExplainedAt.compute(shape, (key, last) -> {
+            if (last != null && now - last < interval) return last;
+            acquired[0] = true;
+            return now;
+        });
+        return acquired[0];
+    }
+
+    // 쿼리 통계와 로그에 섞이지 않도록 Sql 을 거치지 않고 직접 실행한다.
+    private List<Map<String, Object>> explain(String sql, Object[] params) {
+        try (Connection connection = simpleDb.getConnectionManager().getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<Map<String, Object>> plan = new ArrayList<>();
+                ResultSchema schema = null;
+                while (resultSet.next()) {
+                    if (schema == null) schema = ResultSchema.of(resultSet.getMetaData());
+                    plan.add(new LinkedHashMap<>(schema.readRow(resultSet)));
+                }
+                return plan;
+            }
+        } catch (SQLException | RuntimeException e) {
+            // 실행 계획을 못 얻어도 기록 자체는 남긴다.
+            return List.of(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private synchronized void append(SlowQuery slowQuery) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(config.getLogFile(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(Ut.mapper.toJson(slowQuery));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            discarded.increment();
+        }
+    }
+
+    // 라이브러리와 JDK 프레임을 건너뛴 첫 호출 위치
+    private static String callSite() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> !isInternal(frame.getDeclaringClass()))
+                .findFirst()
+                .map(frame -> frame.toStackTraceElement().toString())
+                .orElse("unknown"));
+    }
+
+    private static boolean isInternal(Class<?> type) {
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("jdk.") || name.startsWith("sun.")) return true;
+        // 내부 클래스와 람다는 바깥 클래스로 판단한다.
+        return LIBRARY_CLASSES.contains(type.getNestHost());
+    }
+}
@@ -0,0 +1,43 @@
+package com.ll.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 느린 쿼리 로그 설정
+ */
+@Getter
+@Builder
+@ToString
+public class SlowQueryLogConfig {
+    // 이 시간 이상 걸린 실행을 기록한다. (커넥션 대기부터 결과 변환까지)
+    @Builder.Default
+    private final Duration threshold = Duration.ofSeconds(1);
+
+    // 메모리에 보관할 가장 느린 실행 수
+    @Builder.Default
+    private final int topN = 50;
+
+    // SELECT 가 느리면 EXPLAIN 을 다시 실행해 실행 계획을 붙인다.
+    @Builder.Default
+    private final boolean explain = false;
+
+    // 같은 SQL 모양에 대해 EXPLAIN 을 다시 실행하기까지의 최소 간격
+    @Builder.Default
+    private final Duration explainInterval = Duration.ofMinutes(1);
+
+    // 기록마다 JSON 한 줄씩 덧붙일 파일, null 이면 파일에 남기지 않는다.
+    @Builder.Default
+    private final Path logFile = null;
+
+    @Builder.Default
+    private final ParamMasker paramMasker = ParamMasker.none();
+
+    public static SlowQueryLogConfig defaults() {
+        return SlowQueryLogConfig.builder().build();
+    }
+}
@@ -1,82 +1,534 @@
 package com.ll.database;
 
-import com.ll.standard.util.Ut;
-
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 public class Sql {
-    private final List<Object> params = new ArrayList<>();
+    // appendIn 목록은 이 크기까지 2 의 거듭제곱으로, 넘으면 이 크기의 배수로 채운다.
+    private static final int MAX_IN_LIST_BUCKET = 1024;
+    // 기본형 배열 조회의 시작 크기, 모자라면 두 배씩 늘린다.
+    private static final int INITIAL_ARRAY_CAPACITY = 64;
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?\\s*\\)");
+    private static final Pattern FIELD_LIST = Pattern.compile("(?i)\\bFIELD\\s*\\([^,()]+,\\s*\\?\\s*\\)");
+    // 나눠 실행한 결과를 이어 붙이면 의미가 달라지는 쿼리
+    private static final Pattern NOT_CHUNKABLE = Pattern.compile(
+            "(?i)\\b(?:COUNT|SUM|AVG|MIN|MAX|GROUP_CONCAT)\\s*\\(|\\bGROUP\\s+BY\\b|\\bHAVING\\b|\\bDISTINCT\\b|\\bLIMIT\\b|\\bUNION\\b");
+    private static final Pattern ORDER_BY = Pattern.compile("(?i)\\bORDER\\s+BY\\b");
+    private static final Pattern ORDER_BY_FIELD = Pattern.compile("(?i)\\bORDER\\s+BY\\s+FIELD\\s*\\(");
+    // 조각마다 다른 행을 빼거나(NOT IN) 다른 조건으로 같은 행을 다시 고를 수 있는(OR, 하위 조회) 조건
+    private static final Pattern NOT_CONJUNCTIVE = Pattern.compile(
+            "(?i)\\bOR\\b|\\bXOR\\b|\\|\\||(?<!\\bIS\\s)\\bNOT\\b|\\(\\s*SELECT\\b");
+
+    private final List<Object> params;
     private final QueryBuilder queryBuilder;
+    // Query 로 미리 컴파일된 SQL 과 인자, 이때는 append 를 쓰지 않는다.
+    private final String compiledSql;
+    private final Object[] compiledArgs;
     private final ConnectionManager connectionManager;
     private final Connection connection;
     private final DevLogger devLogger;
+    // 스트리밍 조회 시 드라이버에 넘기는 fetch size, MIN_VALUE 는 MySQL 의 행 단위 스트리밍
+    private int fetchSize = Integer.MIN_VALUE;
+    // addBatch 로 쌓인 행별 파라미터, 한 번에 batchSize 개씩 전송한다.
+    private final List<Object[]> batchParams = new ArrayList<>();
+    private int batchSize = 1000;
+    // appendIn 으로 넣은 IN/FIELD 목록들, 큰 목록을 나눠 실행할 때 SQL 을 다시 만드는 데 쓴다.
+    private final List<InList> inLists;
+    private int inListChunkSize = MAX_IN_LIST_BUCKET;
+    // genSql() 로 만들어진 경우 자신을 만든 SimpleDb, 비동기 실행과 결과 캐시에 쓴다.
+    private SimpleDb simpleDb;
+    // 이 문장의 실행 시간 제한, null 이면 SimpleDb 의 기본값을 쓴다.
+    private Duration timeout;
+    // cancel() 이 끊을 실행 중인 문장의 취소 핸들
+    private volatile QueryTimeout executing;
+    private volatile boolean cancelled;
 
     // 생성자 : 객체를 받아 초기화한다.
     public Sql(ConnectionManager connectionManager, DevLogger devLogger) {
+        this.params = new ArrayList<>();
+        this.inLists = new ArrayList<>();
         this.queryBuilder = new QueryBuilder();
+        this.compiledSql = null;
+        this.compiledArgs = null;
         this.connectionManager = connectionManager;
         this.devLogger = devLogger;
-        connection = connectionManager.getConnection();
+        this.connection = null;
     }
 
     public Sql(Connection connection, DevLogger devLogger) {
+        this.params = new ArrayList<>();
+        this.inLists = new ArrayList<>();
         this.queryBuilder = new QueryBuilder();
+        this.compiledSql = null;
+        this.compiledArgs = null;
         this.connectionManager = null;
         this.devLogger = devLogger;
         this.connection = connection;
     }
 
+    // Query 실행용, SQL 조립 없이 완성된 SQL 과 인자 배열을 그대로 쓴다.
+    Sql(ConnectionManager connectionManager, Connection connection, DevLogger devLogger, String compiledSql, Object[] compiledArgs) {
+        this.params = List.of();
+        this.inLists = List.of();
+        this.queryBuilder = null;
+        this.compiledSql = compiledSql;
+        this.compiledArgs = compiledArgs;
+        this.connectionManager = connectionManager;
+        this.devLogger = devLogger;
+        this.connection = connection;
+    }
+
     // 나머지 메서드들 유지
     public void setDevMode(boolean devMode) {
         devLogger.setDevMode(devMode);
     }
 
+    void setSimpleDb(SimpleDb simpleDb) {
+        this.simpleDb = simpleDb;
+    }
+
     public Sql append(String query, Object... parameters) {
+        if (compiledSql != null) throw new IllegalStateException("Cannot append to a compiled query");
         queryBuilder.append(query); // 쿼리를 빌더에 추가
         params.addAll(Arrays.asList(parameters)); // 파라미터를 리스트에 추가
         return this;
     }
 
+    /**
+     * 스트리밍 조회(selectCursor/selectStream/forEach)에서 한 번에 가져올 행 수
+     * 양수를 쓰려면 접속 URL 에 useCursorFetch=true 가 있어야 서버 커서가 쓰인다.
+     */
+    public Sql fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * 실행 시간 제한, SimpleDb 의 기본값보다 우선한다. 요청 기한(Deadline)이 더 짧으면 기한을 따른다.
+     * 커서와 스트림은 닫힐 때까지가 실행 시간이다.
+     */
+    public Sql timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * 다른 쓰레드에서 실행 중인 문장을 취소한다. 실행 중이던 쪽은 QueryTimeoutException 을 받는다.
+     */
+    public void cancel() {
+        cancelled = true;
+        // 실행이 끝나 핸들이 닫혔으면 취소하지 않는다. 닫힌 뒤의 문장은 다른 사용자가 쓸 수 있다.
+        QueryTimeout execution = executing;
+        if (execution != null) execution.cancelNow();
+    }
+
+    /**
+     * 배치 실행 시 한 번의 executeBatch 로 보낼 행 수
+     */
+    public Sql batchSize(int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * appendIn 목록이 이보다 길면 조회(selectRows/selectLongs)를 이 크기씩 나눠 실행하고 결과를 이어 붙인다.
+     * NOT IN, OR, 하위 조회가 있는 조건은 나누지 않는다.
+     */
+    public Sql inListChunkSize(int inListChunkSize) {
+        if (inListChunkSize <= 0) throw new IllegalArgumentException("IN list chunk size must be positive.");
+        this.inListChunkSize = inListChunkSize;
+        return this;
+    }
+
+    /**
+     * 같은 문장에 대한 파라미터 한 묶음을 배치에 추가한다.
+     * append 에서 받은 파라미터가 있으면 매 묶음 앞에 붙는다.
+     */
+    public Sql addBatch(Object... parameters) {
+        batchParams.add(parameters);
+        return this;
+    }
+
+    // 지금까지 append 된 최종 SQL 문자열
+    String buildSql() {
+        return (compiledSql != null) ? compiledSql : queryBuilder.build();
+    }
+
+    // 바인딩할 인자들, 컴파일된 쿼리면 복사하지 않는다.
+    private Object[] paramValues() {
+        return (compiledArgs != null) ? compiledArgs : params.toArray();
+    }
+
+    private int paramCount() {
+        return (compiledArgs != null) ? compiledArgs.length : params.size();
+    }
+
+    /**
+     * ? 하나를 parameters 개수만큼의 플레이스홀더로 펼친다.
+     * IN (?) 와 FIELD (컬럼, ?) 목록은 마지막 값을 반복해 정해진 크기로 채워서, 목록 길이가 달라도 같은 SQL 이 되게 한다.
+     * (중복 값은 IN 과 FIELD 의 결과를 바꾸지 않는다.)
+     */
     public Sql appendIn(String baseQuery, Object... parameters) {
         if (parameters == null || parameters.length == 0) {
             throw new IllegalArgumentException("IN clause requires at least one parameter.");
         }
-        // IN 절에 사용할 ? 플레이스홀더를 생성하여 쿼리에 삽입
-        String placeholders = String.join(", ", Collections.nCopies(parameters.length, "?"));
-        String modifiedQuery = baseQuery.replace("?", placeholders);
-        return append(modifiedQuery, parameters);
+        int placeholder = baseQuery.indexOf('?');
+        boolean list = compiledSql == null && placeholder == baseQuery.lastIndexOf('?')
+                && (IN_LIST.matcher(baseQuery).find() || FIELD_LIST.matcher(baseQuery).find());
+        if (!list) {
+            // VALUES 목록 등은 그대로 펼친다.
+            String placeholders = placeholders(parameters.length);
+            String modifiedQuery = baseQuery.replace("?", placeholders);
+            return append(modifiedQuery, parameters);
+        }
+
+        Object[] padded = pad(parameters);
+        String placeholders = placeholders(padded.length);
+        inLists.add(new InList(queryBuilder.length() + placeholder, placeholders.length(), params.size(), padded.length, parameters));
+        return append(baseQuery.substring(0, placeholder) + placeholders + baseQuery.substring(placeholder + 1), padded);
+    }
+
+    // 채워 넣을 목록 크기, 작은 목록은 2 의 거듭제곱, 큰 목록은 MAX_IN_LIST_BUCKET 의 배수
+    static int bucketOf(int size) {
+        if (size <= 1) return 1;
+        if (size <= MAX_IN_LIST_BUCKET) return Integer.highestOneBit(size - 1) << 1;
+        return (size + MAX_IN_LIST_BUCKET - 1) / MAX_IN_LIST_BUCKET * MAX_IN_LIST_BUCKET;
+    }
+
+    private static Object[] pad(Object[] values) {
+        Object[] padded = Arrays.copyOf(values, bucketOf(values.length));
+        Arrays.fill(padded, values.length, padded.length, values[values.length - 1]);
+        return padded;
+    }
+
+    // 처음 나온 순서를 지키며 중복 값을 뺀다. ORDER BY FIELD 도 처음 위치를 쓰므로 순서가 같다.
+    private static Object[] distinct(Object[] values) {
+        return new LinkedHashSet<>(Arrays.asList(values)).toArray();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // 가장 긴 appendIn 목록이 나눠 실행할 크기를 넘고, 나눠도 결과가 같은 조회인지
+    // AND 로만 이어진 조건의 IN 목록만 나누고, 그 밖에는 채워 넣은 문장 하나로 실행한다.
+    private boolean isChunked() {
+        if (inLists.isEmpty()) return false;
+        Object[] values = inLists.get(0).values();
+        if (distinct(values).length <= inListChunkSize) return false;
+        // IN 목록과 그 순서를 지키는 FIELD 목록처럼 모두 같은 목록이어야 함께 나눌 수 있다.
+        for (InList inList : inLists) {
+            if (!Arrays.equals(inList.values(), values)) return false;
+        }
+        String sql = buildSql();
+        if (!SqlTables.isRead(sql) || NOT_CHUNKABLE.matcher(sql).find() || NOT_CONJUNCTIVE.matcher(sql).find()) return false;
+        // 전체 정렬은 목록 순서(ORDER BY FIELD)일 때만 조각을 차례로 이어 붙여 지킬 수 있다.
+        return !ORDER_BY.matcher(sql).find() || ORDER_BY_FIELD.matcher(sql).find();
+    }
+
+    /**
+     * 목록을 inListChunkSize 씩 나눈 쿼리들을 실행하고 목록 순서대로 결과를 이어 붙인다.
+     * 트랜잭션 밖이면 가상 쓰레드에서 동시에, 안이면 트랜잭션 커넥션에서 차례로 실행한다.
+     */
+    private <T> List<T> selectChunked(Function<Sql, List<T>> terminal) {
+        // 같은 값이 두 조각에 들어가면 같은 행이 두 번 나온다.
+        Object[] values = distinct(inLists.get(0).values());
+        String raw = queryBuilder.raw();
+
+        List<Supplier<List<T>>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.length; from += inListChunkSize) {
+            Object[] padded = pad(Arrays.copyOfRange(values, from, Math.min(from + inListChunkSize, values.length)));
+            StringBuilder chunkSql = new StringBuilder(raw);
+            List<Object> chunkArgs = new ArrayList<>(params);
+            // 뒤의 목록부터 바꿔야 앞 목록의 위치가 유지된다.
+            for (int i = inLists.size() - 1; i >= 0; i--) {
+                InList inList = inLists.get(i);
+                chunkSql.replace(inList.offset(), inList.offset() + inList.length(), placeholders(padded.length));
+                List<Object> range = chunkArgs.subList(inList.paramStart(), inList.paramStart() + inList.paramCount());
+                range.clear();
+                range.addAll(Arrays.asList(padded));
+            }
+            Sql chunk = new Sql(connectionManager, connection, devLogger, chunkSql.toString().trim(), chunkArgs.toArray());
+            chunk.setSimpleDb(simpleDb);
+            chunk.timeout(timeout);
+            chunks.add(() -> {
+                try {
+                    return terminal.apply(chunk);
+                } catch (NoSuchElementException e) {
+                    return List.of();
+                }
+            });
+        }
+
+        List<T> rows = new ArrayList<>();
+        if (simpleDb != null && connection == null) {
+            List<CompletableFuture<List<T>>> futures = chunks.stream()
+                    .map(chunk -> simpleDb.asyncExecutor().submit(chunk))
+                    .toList();
+            for (CompletableFuture<List<T>> future : futures) {
+                try {
+                    rows.addAll(future.join());
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException cause) throw cause;
+                    throw e;
+                }
+            }
+        } else {
+            for (Supplier<List<T>> chunk : chunks) {
+                rows.addAll(chunk.get());
+            }
+        }
+        if (rows.isEmpty()) throw new NoSuchElementException("No data found");
+        return rows;
     }
 
 
     private <T> T run(Class<T> tclass) {
-        String sql = queryBuilder.build();
+        String sql = buildSql();
+        QueryCache queryCache = (simpleDb != null && connection == null && SqlTables.isRead(sql))
+                ? simpleDb.getQueryCache()
+                : null;
+        if (queryCache == null) return run(sql, tclass, resultSet -> parseResultSet(resultSet, tclass));
+        Set<String> tables = SqlTables.of(sql);
+        if (!SqlTables.isCacheable(sql, tables)) return run(sql, tclass, resultSet -> parseResultSet(resultSet, tclass));
+
+        // 트랜잭션 밖의 단순 타입 조회만 캐시한다. 엔티티 조회는 객체가 변경 가능하므로 제외한다.
+        QueryCache.Key key = new QueryCache.Key(sql, Arrays.asList(paramValues()), tclass);
+        Object cached = queryCache.get(key);
+        if (cached != null) return tclass.cast(cached);
+
+        long[] versions = queryCache.versionsOf(tables);
+        T result = run(sql, tclass, resultSet -> parseResultSet(resultSet, tclass));
+        if (result instanceof List<?> rows) {
+            result = tclass.cast(Collections.unmodifiableList(rows));
+        }
+        queryCache.put(key, tables, versions, result);
+        return result;
+    }
+
+    private <T> T run(Class<?> tclass, ResultSetHandler<T> resultSetHandler) {
+        return run(buildSql(), tclass, resultSetHandler);
+    }
+
+    private <T> T run(String sql, Class<?> tclass, ResultSetHandler<T> resultSetHandler) {
+
+        if (devLogger.isDevMode()) devLogger.logQuery(sql, paramValues());
 
-        devLogger.logQuery(sql, params.toArray());
+        // 생성 키는 INSERT 에서만 필요하다. 캐시 키에도 포함된다.
+        int autoGeneratedKeys = sql.startsWith("INSERT")
+                ? Statement.RETURN_GENERATED_KEYS
+                : Statement.NO_GENERATED_KEYS;
 
-        try(
-                PreparedStatement preparedStatement = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)
-                ){
+        long timeoutNanos = resolveTimeout();
+        ExecutionTrace trace = ExecutionTrace.begin(simpleDb, sql, paramValues());
+        Connection activeConnection = null;
+        PreparedStatement preparedStatement = null;
+        QueryTimeout queryTimeout = QueryTimeout.NONE;
+        boolean failed = false;
+        try {
+            activeConnection = acquireConnection(sql);
+            trace.acquired();
+            preparedStatement = StatementCache.prepare(activeConnection, sql, autoGeneratedKeys);
 
             setParams(preparedStatement);
+            trace.prepared();
+            queryTimeout = startExecution(preparedStatement, timeoutNanos);
 
             if(sql.startsWith("INSERT")) {
-                preparedStatement.executeUpdate();
-                ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-                return (generatedKeys.next() && tclass == Long.class) ? (T) (Long) generatedKeys.getLong(1) : (T) (Integer) preparedStatement.getUpdateCount();
+                int affectedRows = preparedStatement.executeUpdate();
+                trace.executed();
+                trace.affected(affectedRows);
+                afterWrite(sql);
+                try(ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                    return (generatedKeys.next() && tclass == Long.class) ? (T) (Long) generatedKeys.getLong(1) : (T) (Integer) preparedStatement.getUpdateCount();
+                }
             }
 
             if(sql.startsWith("SELECT")) {
                 try(ResultSet resultSet = preparedStatement.executeQuery()) {
-                    return parseResultSet(resultSet, tclass);
+                    trace.executed();
+                    T result = resultSetHandler.handle(resultSet);
+                    trace.fetched(result);
+                    return result;
                 }
             }
 
-            return (T)(Integer) preparedStatement.executeUpdate();
+            int affectedRows = preparedStatement.executeUpdate();
+            trace.executed();
+            trace.affected(affectedRows);
+            afterWrite(sql);
+            return (T)(Integer) affectedRows;
         } catch (SQLException e ) {
-            throw new RuntimeException("SQL Execution failed: " + e.getMessage(), e);
+            failed = true;
+            trace.failed(e);
+            PooledConnection.markBrokenIfFatal(activeConnection, e);
+            throw executionFailure("SQL Execution failed: ", e, queryTimeout);
+        } catch (RuntimeException e) {
+            trace.failed(e);
+            throw e;
+        } finally {
+            endExecution(queryTimeout);
+            if (preparedStatement != null) {
+                StatementCache.release(activeConnection, sql, autoGeneratedKeys, preparedStatement, failed);
+            }
+            if (activeConnection != null) releaseConnection(activeConnection);
+            trace.finish();
+        }
+    }
+
+    /**
+     * addBatch 로 쌓은 파라미터들을 batchSize 단위로 나눠 실행한다.
+     * rewriteBatchedStatements=true 인 MySQL 접속에서는 묶음마다 다중 행 INSERT 한 번으로 전송된다.
+     * 트랜잭션 밖에서는 묶음마다 자동 커밋되므로, 전체를 원자적으로 하려면 트랜잭션 안에서 호출한다.
+     * 성공하면 쌓인 파라미터를 비운다.
+     */
+    public BatchResult executeBatch() {
+        if (batchParams.isEmpty()) throw new IllegalStateException("No batch parameters added.");
+
+        String sql = buildSql();
+        int autoGeneratedKeys = sql.startsWith("INSERT")
+                ? Statement.RETURN_GENERATED_KEYS
+                : Statement.NO_GENERATED_KEYS;
+
+        if (devLogger.isDevMode()) devLogger.logQuery(sql, paramValues());
+
+        int[] updateCounts = new int[batchParams.size()];
+        long[] generatedIds = new long[autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? batchParams.size() : 0];
+        int idCount = 0;
+
+        long timeoutNanos = resolveTimeout();
+        ExecutionTrace trace = ExecutionTrace.begin(simpleDb, sql, paramValues());
+        Connection activeConnection = null;
+        PreparedStatement preparedStatement = null;
+        QueryTimeout queryTimeout = QueryTimeout.NONE;
+        boolean failed = false;
+        try {
+            activeConnection = acquireConnection(sql);
+            trace.acquired();
+            preparedStatement = StatementCache.prepare(activeConnection, sql, autoGeneratedKeys);
+            trace.prepared();
+            // 시간 제한은 모든 묶음을 합친 실행 시간에 건다.
+            queryTimeout = startExecution(preparedStatement, timeoutNanos);
+
+            for (int from = 0; from < batchParams.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, batchParams.size());
+                for (int row = from; row < to; row++) {
+                    setParams(preparedStatement);
+                    Object[] rowParams = batchParams.get(row);
+                    for (int i = 0; i < rowParams.length; i++) {
+                        preparedStatement.setObject(paramCount() + i + 1, rowParams[i]);
+                    }
+                    preparedStatement.addBatch();
+                }
+
+                int[] chunkCounts = preparedStatement.executeBatch();
+                trace.executed();
+                // 행마다 파라미터가 달라 id 를 하나로 특정할 수 없다.
+                if (simpleDb != null) simpleDb.afterWrite(sql, null);
+                System.arraycopy(chunkCounts, 0, updateCounts, from, chunkCounts.length);
+
+                if (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) {
+                    try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                        while (generatedKeys.next()) {
+                            if (idCount == generatedIds.length) {
+                                generatedIds = Arrays.copyOf(generatedIds, generatedIds.length * 2);
+                            }
+                            generatedIds[idCount++] = generatedKeys.getLong(1);
+                        }
+                    }
+                }
+            }
+
+            BatchResult result = new BatchResult(updateCounts, Arrays.copyOf(generatedIds, idCount));
+            trace.affected(result.getTotalUpdateCount());
+            // PreparedStatement.executeBatch 처럼 실행한 묶음은 비운다. 다시 실행해도 같은 행이 들어가지 않는다.
+            batchParams.clear();
+            return result;
+        } catch (SQLException e) {
+            failed = true;
+            trace.failed(e);
+            PooledConnection.markBrokenIfFatal(activeConnection, e);
+            throw executionFailure("SQL Batch execution failed: ", e, queryTimeout);
+        } catch (RuntimeException e) {
+            trace.failed(e);
+            throw e;
+        } finally {
+            endExecution(queryTimeout);
+            if (preparedStatement != null) {
+                try {
+                    preparedStatement.clearBatch();
+                } catch (SQLException e) {
+                    failed = true;
+                }
+                StatementCache.release(activeConnection, sql, autoGeneratedKeys, preparedStatement, failed);
+            }
+            if (activeConnection != null) releaseConnection(activeConnection);
+            trace.finish();
+        }
+    }
+
+    private long resolveTimeout() {
+        return QueryTimeout.resolveNanos(timeout, (simpleDb != null) ? simpleDb.getDefaultQueryTimeout() : null);
+    }
+
+    // 실행 직전에 취소 대상으로 등록하고 시간 제한 타이머를 건다.
+    private QueryTimeout startExecution(PreparedStatement statement, long timeoutNanos) {
+        QueryTimeout queryTimeout = QueryTimeout.watch(statement, timeoutNanos);
+        executing = queryTimeout;
+        // 등록한 뒤에 확인해야 그 사이에 온 cancel() 을 놓치지 않는다.
+        if (cancelled) {
+            endExecution(queryTimeout);
+            throw new QueryTimeoutException("Query cancelled before execution");
+        }
+        return queryTimeout;
+    }
+
+    // 진행 중인 취소가 끝날 때까지 기다린 뒤 등록을 푼다. 이후의 cancel() 은 문장에 닿지 않는다.
+    private void endExecution(QueryTimeout queryTimeout) {
+        queryTimeout.close();
+        executing = null;
+    }
+
+    // 타이머나 cancel() 로 끊긴 실행은 QueryTimeoutException 으로 알린다.
+    private RuntimeException executionFailure(String message, SQLException e, QueryTimeout queryTimeout) {
+        if (queryTimeout.fired()) {
+            return new QueryTimeoutException("Query timed out after %dms".formatted(queryTimeout.timeoutMillis()), e);
+        }
+        if (cancelled) return new QueryTimeoutException("Query cancelled", e);
+        return new RuntimeException(message + e.getMessage(), e);
+    }
+
+    // 쓰기 문장이 참조한 테이블과 엔티티의 캐시를 무효화한다.
+    private void afterWrite(String sql) {
+        if (simpleDb != null) simpleDb.afterWrite(sql, paramValues());
+    }
+
+    // 트랜잭션 커넥션이 없으면 풀에서 빌린다. 조회는 읽기 복제본으로 보낼 수 있다.
+    private Connection acquireConnection(String sql) {
+        if (connection != null) return connection;
+        if (simpleDb != null && SqlTables.isRead(sql)) return simpleDb.readConnection();
+        return connectionManager.getConnection();
+    }
+
+    // 빌린 커넥션만 풀에 돌려준다. 트랜잭션 커넥션은 SimpleDb 가 관리한다.
+    private void releaseConnection(Connection borrowed) {
+        if (borrowed == connection) return;
+        try {
+            borrowed.close();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while returning connection", e);
         }
     }
 
@@ -86,9 +538,11 @@ public class Sql {
         return switch (cls.getSimpleName()) {
             case "String" -> (T) resultSet.getString(1);
             case "List" -> {
+                // 메타데이터는 결과 집합마다 한 번만 읽고 모든 행이 공유한다.
+                ResultSchema schema = ResultSchema.of(resultSet.getMetaData());
                 List<Map<String, Object>> rows = new ArrayList<>();
                 do {
-                    rows.add(parseResultSetToMap(resultSet));
+                    rows.add(schema.readRow(resultSet));
                 } while (resultSet.next());
                 yield (T) rows;
             }
@@ -101,25 +555,8 @@ public class Sql {
     }
 
     // ResultSet을 Map으로 변환
-    private Map<String, Object> parseResultSetToMap(ResultSet resultSet) throws SQLException {
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
-
-        Map<String, Object> row = new LinkedHashMap<>();
-        for (int i = 1; i <= columnCount; i++) {
-            String columnName = metaData.getColumnLabel(i);
-            Object value = switch (metaData.getColumnType(i)) {
-                case Types.BIGINT -> resultSet.getLong(columnName);
-                case Types.TIMESTAMP -> {
-                    Timestamp timestamp = resultSet.getTimestamp(columnName);
-                    yield (timestamp != null) ? timestamp.toLocalDateTime() : null;
-                }
-                case Types.BOOLEAN -> resultSet.getBoolean(columnName);
-                default -> resultSet.getObject(columnName);
-            };
-            row.put(columnName, value);
-        }
-        return row;
+    static Map<String, Object> parseResultSetToMap(ResultSet resultSet) throws SQLException {
+        return ResultSchema.of(resultSet.getMetaData()).readRow(resultSet);
     }
 
     public long insert() {
@@ -139,19 +576,112 @@ public class Sql {
     }
 
     public List<Map<String, Object>> selectRows() {
+        if (isChunked()) return selectChunked(Sql::selectRows);
         return run(List.class);
     }
 
     public <T> T selectRow(Class<T> tClass){
-        return Ut.mapper.mapToObj(selectRow(), tClass);
+        EntityCache entityCache = (simpleDb != null && connection == null) ? simpleDb.getEntityCache() : null;
+        if (entityCache != null) {
+            EntityCache.Key key = entityCache.keyOf(tClass, buildSql(), paramValues());
+            if (key != null) return entityCache.get(key, () -> loadRow(tClass));
+        }
+        return loadRow(tClass);
+    }
+
+    private <T> T loadRow(Class<T> tClass) {
+        return run(tClass, resultSet -> {
+            if (!resultSet.next()) throw new NoSuchElementException("No data found");
+            return EntityMapper.of(tClass).bind(resultSet.getMetaData()).map(resultSet);
+        });
     }
 
     public <T> List<T> selectRows(Class<T> tclass) {
-        List<Map<String, Object>> rows = selectRows();
+        if (isChunked()) return selectChunked(chunk -> chunk.selectRows(tclass));
+        return run(tclass, resultSet -> {
+            if (!resultSet.next()) throw new NoSuchElementException("No data found");
+
+            // 컬럼 구성은 결과 집합마다 한 번만 확인하고, 행마다 인덱스로 바로 읽는다.
+            RowMapper<T> rowMapper = EntityMapper.of(tclass).bind(resultSet.getMetaData());
+            List<T> rows = new ArrayList<>();
+            do {
+                rows.add(rowMapper.map(resultSet));
+            } while (resultSet.next());
+            return rows;
+        });
+    }
+
+    // 주어진 변환기로 모든 행을 읽는다. 결과가 없으면 빈 리스트
+    <T> List<T> selectRows(RowMapper<T> rowMapper) {
+        return run(Object.class, resultSet -> {
+            List<T> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                rows.add(rowMapper.map(resultSet));
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * 결과를 한 행씩 읽는 커서를 연다. 다 쓰면 반드시 close() 해야 커넥션이 반납된다.
+     */
+    public <T> ResultCursor<T> selectCursor(RowMapper<T> rowMapper) {
+        String sql = buildSql();
+
+        if (devLogger.isDevMode()) devLogger.logQuery(sql, paramValues());
+
+        long timeoutNanos = resolveTimeout();
+        ExecutionTrace trace = ExecutionTrace.begin(simpleDb, sql, paramValues());
+        Connection activeConnection = acquireConnection(sql);
+        trace.acquired();
+        PreparedStatement preparedStatement = null;
+        QueryTimeout queryTimeout = QueryTimeout.NONE;
+        try {
+            preparedStatement = activeConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            setParams(preparedStatement);
+            trace.prepared();
+            // 커서가 닫힐 때까지 시간 제한이 걸려 있다.
+            queryTimeout = startExecution(preparedStatement, timeoutNanos);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            trace.executed();
+            return new ResultCursor<>(activeConnection, activeConnection != connection, preparedStatement, resultSet, rowMapper, trace, queryTimeout);
+        } catch (SQLException | RuntimeException e) {
+            trace.failed(e);
+            trace.finish();
+            endExecution(queryTimeout);
+            if (e instanceof SQLException sqlException) PooledConnection.markBrokenIfFatal(activeConnection, sqlException);
+            if (preparedStatement != null) {
+                try {
+                    preparedStatement.close();
+                } catch (SQLException ignored) {
+                    // 실행 실패를 우선 알린다.
+                }
+            }
+            releaseConnection(activeConnection);
+            if (e instanceof SQLException sqlException) throw executionFailure("SQL Execution failed: ", sqlException, queryTimeout);
+            throw (RuntimeException) e;
+        }
+    }
+
+    public <T> ResultCursor<T> selectCursor(Class<T> tClass) {
+        return selectCursor(EntityMapper.of(tClass).rowMapper());
+    }
+
+    public Stream<Map<String, Object>> selectStream() {
+        return selectCursor(ResultSchema.rowMapper()).stream();
+    }
+
+    /**
+     * 결과를 지연 스트림으로 돌려준다. try-with-resources 로 닫아야 커넥션이 반납된다.
+     */
+    public <T> Stream<T> selectStream(Class<T> tClass) {
+        return selectCursor(tClass).stream();
+    }
 
-        return rows.stream()
-                .map(row -> Ut.mapper.mapToObj(row, tclass))  // 각각의 행을 T 타입 객체로 변환
-                .collect(Collectors.toList());  // 결과를 List<T> 형태로 수집하여 반환
+    // 모든 행을 차례로 처리하고 커서를 닫는다.
+    public <T> void forEach(Class<T> tClass, Consumer<? super T> action) {
+        selectCursor(tClass).forEachRemaining(action);
     }
 
     public LocalDateTime selectDatetime() {
@@ -163,10 +693,78 @@ public class Sql {
     }
 
     public List<Long> selectLongs() {
-        return selectRows()
-                .stream()    // selectRows() 결과를 스트림으로 변환
-                .map(row -> (Long) row.values().iterator().next()) //각 row의 첫 번째 값(Long으로 캐스팅)을 매핑
-                .toList();    // 스트림의 결과를 List<Long> 형태로 반환
+        if (isChunked()) return selectChunked(Sql::selectLongs);
+        // 행마다 Map 을 만들지 않고 첫 컬럼만 읽는다.
+        return run(List.class, resultSet -> {
+            if (!resultSet.next()) throw new NoSuchElementException("No data found");
+            List<Long> values = new ArrayList<>();
+            do {
+                long value = resultSet.getLong(1);
+                values.add(resultSet.wasNull() ? null : value);
+            } while (resultSet.next());
+            return values;
+        });
+    }
+
+    /**
+     * 첫 컬럼을 long 배열로 읽는다. 행마다 박싱이나 Map 을 만들지 않는다.
+     * 결과가 없으면 빈 배열이고, NULL 은 0 으로 읽힌다.
+     */
+    public long[] selectLongArray() {
+        if (isChunked()) {
+            List<long[]> chunks = selectChunked(chunk -> List.of(chunk.selectLongArray()));
+            return chunks.stream().flatMapToLong(Arrays::stream).toArray();
+        }
+        return run(long[].class, resultSet -> {
+            long[] values = new long[INITIAL_ARRAY_CAPACITY];
+            int size = 0;
+            while (resultSet.next()) {
+                if (size == values.length) values = Arrays.copyOf(values, size << 1);
+                values[size++] = resultSet.getLong(1);
+            }
+            return (size == values.length) ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    // selectLongArray() 결과를 스트림으로, 결과를 모두 읽은 뒤 돌려준다.
+    public LongStream selectLongStream() {
+        return Arrays.stream(selectLongArray());
+    }
+
+    public int[] selectIntArray() {
+        if (isChunked()) {
+            List<int[]> chunks = selectChunked(chunk -> List.of(chunk.selectIntArray()));
+            return chunks.stream().flatMapToInt(Arrays::stream).toArray();
+        }
+        return run(int[].class, resultSet -> {
+            int[] values = new int[INITIAL_ARRAY_CAPACITY];
+            int size = 0;
+            while (resultSet.next()) {
+                if (size == values.length) values = Arrays.copyOf(values, size << 1);
+                values[size++] = resultSet.getInt(1);
+            }
+            return (size == values.length) ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    public IntStream selectIntStream() {
+        return Arrays.stream(selectIntArray());
+    }
+
+    public double[] selectDoubleArray() {
+        if (isChunked()) {
+            List<double[]> chunks = selectChunked(chunk -> List.of(chunk.selectDoubleArray()));
+            return chunks.stream().flatMapToDouble(Arrays::stream).toArray();
+        }
+        return run(double[].class, resultSet -> {
+            double[] values = new double[INITIAL_ARRAY_CAPACITY];
+            int size = 0;
+            while (resultSet.next()) {
+                if (size == values.length) values = Arrays.copyOf(values, size << 1);
+                values[size++] = resultSet.getDouble(1);
+            }
+            return (size == values.length) ? values : Arrays.copyOf(values, size);
+        });
     }
 
     public String selectString(){
@@ -177,10 +775,87 @@ public class Sql {
         return run(Boolean.class);
     }
 
+    public CompletableFuture<Long> insertAsync() {
+        return async(this::insert);
+    }
+
+    public CompletableFuture<Integer> updateAsync() {
+        return async(this::update);
+    }
+
+    public CompletableFuture<Integer> deleteAsync() {
+        return async(this::delete);
+    }
+
+    public CompletableFuture<Map<String, Object>> selectRowAsync() {
+        return async(this::selectRow);
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> selectRowsAsync() {
+        return async(this::selectRows);
+    }
+
+    public <T> CompletableFuture<T> selectRowAsync(Class<T> tClass) {
+        return async(() -> selectRow(tClass));
+    }
+
+    public <T> CompletableFuture<List<T>> selectRowsAsync(Class<T> tClass) {
+        return async(() -> selectRows(tClass));
+    }
+
+    public CompletableFuture<LocalDateTime> selectDatetimeAsync() {
+        return async(this::selectDatetime);
+    }
+
+    public CompletableFuture<Long> selectLongAsync() {
+        return async(this::selectLong);
+    }
+
+    public CompletableFuture<List<Long>> selectLongsAsync() {
+        return async(this::selectLongs);
+    }
+
+    public CompletableFuture<String> selectStringAsync() {
+        return async(this::selectString);
+    }
+
+    public CompletableFuture<Boolean> selectBooleanAsync() {
+        return async(this::selectBoolean);
+    }
+
+    public CompletableFuture<BatchResult> executeBatchAsync() {
+        return async(this::executeBatch);
+    }
+
+    // 트랜잭션 커넥션은 호출 쓰레드 전용이므로 다른 쓰레드로 넘기지 않는다.
+    private <T> CompletableFuture<T> async(Supplier<T> terminal) {
+        if (simpleDb == null) {
+            throw new IllegalStateException("Async execution requires a Sql created by SimpleDb.genSql()");
+        }
+        if (connection != null) {
+            throw new IllegalStateException("Async execution is not supported inside a transaction");
+        }
+        return simpleDb.asyncExecutor().submit(terminal);
+    }
+
     private void setParams(PreparedStatement preparedStatement) throws SQLException {
+        if (compiledArgs != null) {
+            // 컴파일된 쿼리는 값의 타입에 맞는 setter 로 바인딩한다.
+            ParamBinder.bindAll(preparedStatement, compiledArgs);
+            return;
+        }
         for (int i = 0; i < params.size(); i++) {
             preparedStatement.setObject(i + 1, params.get(i)); // SQL 1부터 시작하는 인덱스로 파라미터 설정
         }
     }
 
+    // appendIn 으로 펼친 목록 하나, offset 과 length 는 trim 전 SQL 에서의 플레이스홀더 위치다.
+    private record InList(int offset, int length, int paramStart, int paramCount, Object[] values) {
+    }
+
+    // 실행된 SELECT 의 ResultSet 전체를 결과 하나로 만든다.
+    @FunctionalInterface
+    private interface ResultSetHandler<T> {
+        T handle(ResultSet resultSet) throws SQLException;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.ll.database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 통계를 모을 때 쓰는 SQL 의 정규화된 모양
+ * 공백을 하나로 줄이고, 리터럴은 ? 로 바꾸고, 길이가 다른 IN 목록은 IN (?+) 하나로 합친다.
+ */
+final class SqlShape {
+    private static final int MAX_CACHED = 10_000;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlShape() {
+    }
+
+    static String of(String sql) {
+        String shape = CACHE.get(sql);
+        if (shape != null) return shape;
+
+        shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("IN (?+)");
+
+        // 리터럴이 매번 다른 SQL 이 많아도 캐시가 끝없이 커지지 않게 한다.
+        if (CACHE.size() >= MAX_CACHED) CACHE.clear();
+        CACHE.put(sql, shape);
+        return shape;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ll.database;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 문자열에서 참조하는 테이블 이름을 뽑는다.
+ * 캐시 무효화 용도라 정확한 파서 대신 FROM/JOIN/INTO/UPDATE/TABLE 뒤의 식별자와 그에 이어진 쉼표 목록을 찾는다.
+ */
+final class SqlTables {
+    private static final Pattern TABLE_REFERENCE = Pattern.compile(
+            "\\b(?:FROM|JOIN|INTO|UPDATE|TABLE|TRUNCATE)\\s+(?:TABLE\\s+)?(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?`?([\\w$]+)`?(?:\\s*\\.\\s*`?([\\w$]+)`?)?",
+            Pattern.CASE_INSENSITIVE
+    );
+    // FROM a x, b y 나 UPDATE a, b 처럼 쉼표로 이어진 다음 테이블, 앞 테이블의 별칭을 건너뛴다.
+    private static final Pattern NEXT_TABLE = Pattern.compile(
+            "(?:\\s+(?:AS\\s+)?`?[\\w$]+`?)?\\s*,\\s*`?([\\w$]+)`?(?:\\s*\\.\\s*`?([\\w$]+)`?)?",
+            Pattern.CASE_INSENSITIVE
+    );
+    // 이름을 뽑을 수 없는 파생 테이블 FROM (SELECT ...)
+    private static final Pattern DERIVED_TABLE = Pattern.compile(
+            "(?:\\bFROM|\\bJOIN)\\s*\\(|,\\s*\\(\\s*SELECT\\b",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private SqlTables() {
+    }
+
+    static Set<String> of(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = TABLE_REFERENCE.matcher(sql);
+        Matcher next = NEXT_TABLE.matcher(sql);
+        while (matcher.find()) {
+            add(tables, matcher.group(1), matcher.group(2));
+            next.region(matcher.end(), sql.length());
+            while (next.lookingAt()) {
+                add(tables, next.group(1), next.group(2));
+                next.region(next.end(), sql.length());
+            }
+        }
+        return tables;
+    }
+
+    // db.table 형태면 테이블 이름만 쓴다. DUAL 은 테이블이 아니다.
+    private static void add(Set<String> tables, String first, String second) {
+        String table = ((second != null) ? second : first).toLowerCase(Locale.ROOT);
+        if (!table.equals("dual")) tables.add(table);
+    }
+
+    /**
+     * 결과를 캐시해도 쓰기로 무효화할 수 있는 조회인지
+     * 테이블이 없는 조회(SELECT NOW())와 파생 테이블이 있어 테이블을 다 뽑지 못한 조회는 캐시하지 않는다.
+     */
+    static boolean isCacheable(String sql, Set<String> tables) {
+        return !tables.isEmpty() && !DERIVED_TABLE.matcher(sql).find();
+    }
+
+    static boolean isRead(String sql) {
+        return sql.startsWith("SELECT");
+    }
+}
@@ -0,0 +1,106 @@
+package com.ll.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 커넥션 하나에 딸린 PreparedStatement LRU 캐시
+ * 같은 SQL 문자열과 generated keys 모드로 다시 실행하면 파싱과 서버 prepare 를 건너뛴다.
+ * 사용 중인 문장은 캐시에서 빠져 있다가 반납될 때 다시 들어간다.
+ */
+class StatementCache {
+    record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final StatementCacheStats stats;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+
+    StatementCache(Connection physical, int maxSize, StatementCacheStats stats) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                stats.recordEviction();
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement checkout(Key key) throws SQLException {
+        PreparedStatement statement = statements.remove(key);
+        if (statement != null && !statement.isClosed()) {
+            stats.recordHit();
+            return statement;
+        }
+        stats.recordMiss();
+        return physical.prepareStatement(key.sql(), key.autoGeneratedKeys());
+    }
+
+    void checkin(Key key, PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = statements.put(key, statement);
+        // 같은 SQL 이 중첩 실행된 경우 먼저 들어간 문장은 닫는다.
+        if (previous != null && previous != statement) closeQuietly(previous);
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    void clear() {
+        Iterator<PreparedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            closeQuietly(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 풀 커넥션이면 캐시에서, 아니면 새로 문장을 준비한다.
+     */
+    static PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        StatementCache cache = of(connection);
+        if (cache == null) return connection.prepareStatement(sql, autoGeneratedKeys);
+        return cache.checkout(new Key(sql, autoGeneratedKeys));
+    }
+
+    /**
+     * 실행이 끝난 문장을 돌려준다. 실패한 문장은 재사용하지 않고 닫는다.
+     */
+    static void release(Connection connection, String sql, int autoGeneratedKeys, PreparedStatement statement, boolean failed) {
+        StatementCache cache = of(connection);
+        if (cache == null || failed) {
+            closeQuietly(statement);
+            return;
+        }
+        cache.checkin(new Key(sql, autoGeneratedKeys), statement);
+    }
+
+    private static StatementCache of(Connection connection) {
+        PooledConnection pooled = PooledConnection.of(connection);
+        return (pooled != null) ? pooled.statementCache() : null;
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // 닫기 실패는 물리 커넥션이 닫힐 때 함께 정리된다.
+        }
+    }
+}
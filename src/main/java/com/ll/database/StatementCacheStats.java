@@ -0,0 +1,47 @@
+package com.ll.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 풀 전체 PreparedStatement 캐시의 적중/실패/방출 횟수
+ */
+public class StatementCacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return (total == 0) ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCacheStats{hits=%d, misses=%d, evictions=%d}".formatted(getHits(), getMisses(), getEvictions());
+    }
+}
@@ -0,0 +1,47 @@
+package com.ll.database;
+
+import lombok.Getter;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * SQL 모양 하나의 실행 통계 스냅샷
+ * fetch 구간은 행을 읽으면서 결과 객체로 변환하는 시간까지 포함한다.
+ */
+@Getter
+public class StatementMetrics {
+    private final String shape;
+    private final long executions;
+    private final long errors;
+    private final long rowsReturned;
+    private final long rowsAffected;
+    // 커넥션을 빌리기까지 기다린 시간, 트랜잭션 커넥션을 쓰면 0 에 가깝다.
+    private final LatencySnapshot acquire;
+    private final LatencySnapshot prepare;
+    private final LatencySnapshot execute;
+    private final LatencySnapshot fetch;
+    private final LatencySnapshot total;
+
+    @ConstructorProperties({"shape", "executions", "errors", "rowsReturned", "rowsAffected",
+            "acquire", "prepare", "execute", "fetch", "total"})
+    public StatementMetrics(String shape, long executions, long errors, long rowsReturned, long rowsAffected,
+                            LatencySnapshot acquire, LatencySnapshot prepare, LatencySnapshot execute,
+                            LatencySnapshot fetch, LatencySnapshot total) {
+        this.shape = shape;
+        this.executions = executions;
+        this.errors = errors;
+        this.rowsReturned = rowsReturned;
+        this.rowsAffected = rowsAffected;
+        this.acquire = acquire;
+        this.prepare = prepare;
+        this.execute = execute;
+        this.fetch = fetch;
+        this.total = total;
+    }
+
+    @Override
+    public String toString() {
+        return "%s {executions=%d, errors=%d, rowsReturned=%d, rowsAffected=%d, total=%s}"
+                .formatted(shape, executions, errors, rowsReturned, rowsAffected, total);
+    }
+}
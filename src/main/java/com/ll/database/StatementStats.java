@@ -0,0 +1,50 @@
+package com.ll.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 모양 하나에 대해 누적되는 실행 통계
+ */
+class StatementStats {
+    private final String shape;
+    private final LatencyHistogram acquire = new LatencyHistogram();
+    private final LatencyHistogram prepare = new LatencyHistogram();
+    private final LatencyHistogram execute = new LatencyHistogram();
+    private final LatencyHistogram fetch = new LatencyHistogram();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder rowsReturned = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    StatementStats(String shape) {
+        this.shape = shape;
+    }
+
+    void record(ExecutionTrace trace) {
+        acquire.record(trace.acquireNanos());
+        prepare.record(trace.prepareNanos());
+        execute.record(trace.executeNanos());
+        fetch.record(trace.fetchNanos());
+        total.record(trace.totalNanos());
+        executions.increment();
+        rowsReturned.add(trace.rowsReturned());
+        rowsAffected.add(trace.rowsAffected());
+        if (trace.error() != null) errors.increment();
+    }
+
+    StatementMetrics snapshot() {
+        return new StatementMetrics(
+                shape,
+                executions.sum(),
+                errors.sum(),
+                rowsReturned.sum(),
+                rowsAffected.sum(),
+                acquire.snapshot(),
+                prepare.snapshot(),
+                execute.snapshot(),
+                fetch.snapshot(),
+                total.snapshot()
+        );
+    }
+}
@@ -0,0 +1,10 @@
+package com.ll.database;
+
+/**
+ * inTransaction() 안에서 실행할 작업
+ * 잠금 충돌로 다시 시도하면 처음부터 다시 실행되므로, DB 밖의 부수 효과는 두지 않는다.
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+    T doInTransaction(SimpleDb tx) throws Exception;
+}
@@ -0,0 +1,34 @@
+package com.ll.database;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 한 쓰레드에서 진행 중인 트랜잭션의 상태
+ */
+class TransactionContext {
+    private final Connection connection;
+    // 트랜잭션 안에서 쓰기가 일어난 테이블, 커밋할 때 결과 캐시에서 무효화한다.
+    private final Set<String> writtenTables = new HashSet<>();
+    // 커밋한 뒤에 실행할 엔티티 캐시 무효화
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    TransactionContext(Connection connection) {
+        this.connection = connection;
+    }
+
+    Connection connection() {
+        return connection;
+    }
+
+    Set<String> writtenTables() {
+        return writtenTables;
+    }
+
+    List<Runnable> afterCommit() {
+        return afterCommit;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ll.database;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * inTransaction() 의 커밋/롤백과 잠금 충돌 재시도 횟수
+ */
+public class TransactionStats {
+    // MySQL 오류 코드
+    static final int ER_LOCK_DEADLOCK = 1213;
+    static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder rolledBack = new LongAdder();
+    private final LongAdder deadlockRetries = new LongAdder();
+    private final LongAdder lockTimeoutRetries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder backoffNanos = new LongAdder();
+
+    void recordCommit() {
+        committed.increment();
+    }
+
+    void recordRollback() {
+        rolledBack.increment();
+    }
+
+    void recordRetry(SQLException cause, long sleptNanos) {
+        if (cause.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) lockTimeoutRetries.increment();
+        else deadlockRetries.increment();
+        backoffNanos.add(sleptNanos);
+    }
+
+    void recordExhausted() {
+        exhausted.increment();
+    }
+
+    public long getCommitted() {
+        return committed.sum();
+    }
+
+    public long getRolledBack() {
+        return rolledBack.sum();
+    }
+
+    public long getRetries() {
+        return getDeadlockRetries() + getLockTimeoutRetries();
+    }
+
+    public long getDeadlockRetries() {
+        return deadlockRetries.sum();
+    }
+
+    public long getLockTimeoutRetries() {
+        return lockTimeoutRetries.sum();
+    }
+
+    // 재시도 횟수나 예산을 다 써서 포기한 트랜잭션 수
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    public long getBackoffMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(backoffNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionStats{committed=%d, rolledBack=%d, deadlockRetries=%d, lockTimeoutRetries=%d, exhausted=%d, backoffMillis=%d}"
+                .formatted(getCommitted(), getRolledBack(), getDeadlockRetries(), getLockTimeoutRetries(), getExhausted(), getBackoffMillis());
+    }
+
+    /**
+     * 원인 사슬에서 다시 시도할 수 있는 잠금 충돌 오류를 찾는다. 없으면 null
+     * SQLState 40001 은 드라이버가 데드락(직렬화 실패)에 쓰는 표준 코드다.
+     */
+    static SQLException lockConflictOf(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                int code = sqlException.getErrorCode();
+                if (code == ER_LOCK_DEADLOCK || code == ER_LOCK_WAIT_TIMEOUT || "40001".equals(sqlException.getSQLState())) {
+                    return sqlException;
+                }
+            }
+            if (cause.getCause() == cause) break;
+        }
+        return null;
+    }
+}
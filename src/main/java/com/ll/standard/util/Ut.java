@@ -3,6 +3,7 @@ package com.ll.standard.util;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.SneakyThrows;
 
@@ -20,5 +21,12 @@ public class Ut {
         public static <T> T mapToObj(Map<String, Object> map, Class<T> cls) {
             return OBJECT_MAPPER.convertValue(map, cls);
         }
+
+        @SneakyThrows
+        public static String toJson(Object obj) {
+            return OBJECT_MAPPER.writer()
+                    .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .writeValueAsString(obj);
+        }
     }
 }
\ No newline at end of file
@@ -3,19 +3,33 @@ package com.ll.database;
 import com.ll.Entity.Article;
 import org.junit.jupiter.api.*;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @TestMethodOrder(MethodOrderer.MethodName.class)
 class SimpleDbTest {
@@ -538,4 +552,767 @@ class SimpleDbTest {
 
         assertThat(newCount).isEqualTo(oldCount + 1);
     }
+
+    @Test
+    @DisplayName("connection pool")
+    public void t020() {
+        ConnectionPool pool = simpleDb.getConnectionManager().getPool();
+
+        IntStream.rangeClosed(1, 20).forEach(i -> simpleDb.genSql()
+                .append("SELECT COUNT(*)")
+                .append("FROM article")
+                .selectLong());
+
+        // 매번 새 커넥션을 여는 대신 풀 안의 커넥션을 재사용한다.
+        assertThat(pool.getTotalCount()).isLessThanOrEqualTo(pool.getConfig().getMaxSize());
+        assertThat(pool.getIdleCount()).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("transaction per thread")
+    public void t021() throws Exception {
+        long oldCount = simpleDb.genSql()
+                .append("SELECT COUNT(*)")
+                .append("FROM article")
+                .selectLong();
+
+        simpleDb.startTransaction();
+
+        simpleDb.genSql()
+                .append("INSERT INTO article ")
+                .append("(createdDate, modifiedDate, title, body)")
+                .appendIn("VALUES (NOW(), NOW(), ?)", "새 제목", "새 내용")
+                .insert();
+
+        // 다른 쓰레드는 이 트랜잭션에 참여하지 않고 자기 커넥션으로 조회한다.
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            long countInOtherThread = executorService.submit(() -> simpleDb.genSql()
+                    .append("SELECT COUNT(*)")
+                    .append("FROM article")
+                    .selectLong()).get(10, TimeUnit.SECONDS);
+
+            assertThat(countInOtherThread).isEqualTo(oldCount);
+        } finally {
+            executorService.shutdown();
+            simpleDb.rollback();
+        }
+
+        assertThat(simpleDb.isInTransaction()).isFalse();
+    }
+
+    @Test
+    @DisplayName("prepared statement cache")
+    public void t022() {
+        StatementCacheStats stats = simpleDb.getConnectionManager().getPool().getStatementCacheStats();
+        long oldHits = stats.getHits();
+
+        IntStream.rangeClosed(1, 5).forEach(i -> simpleDb.genSql()
+                .append("SELECT title")
+                .append("FROM article")
+                .append("WHERE id = ?", i)
+                .selectString());
+
+        // 같은 SQL 문자열은 캐시된 문장을 다시 쓴다.
+        assertThat(stats.getHits()).isGreaterThan(oldHits);
+    }
+
+    @Test
+    @DisplayName("selectStream, Article")
+    public void t023() {
+        ConnectionPool pool = simpleDb.getConnectionManager().getPool();
+        int oldActiveCount = pool.getActiveCount();
+
+        Sql sql = simpleDb.genSql();
+        sql.append("SELECT * FROM article ORDER BY id ASC")
+                .fetchSize(2);
+
+        try (Stream<Article> articles = sql.selectStream(Article.class)) {
+            List<Long> ids = articles.map(Article::getId).toList();
+
+            assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        }
+
+        // 스트림을 닫으면 빌린 커넥션이 반납된다.
+        assertThat(pool.getActiveCount()).isEqualTo(oldActiveCount);
+
+        // 행 단위 스트리밍 결과를 다 읽지 않고 닫아도 같은 커넥션에서 다음 쿼리를 실행할 수 있다.
+        simpleDb.startTransaction();
+        try {
+            try (ResultCursor<Article> cursor = simpleDb.genSql()
+                    .append("SELECT * FROM article ORDER BY id ASC")
+                    .fetchSize(Integer.MIN_VALUE)
+                    .selectCursor(Article.class)) {
+                assertThat(cursor.next().getId()).isEqualTo(1L);
+                assertThat(cursor.next().getId()).isEqualTo(2L);
+            }
+
+            assertThat(simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong()).isEqualTo(6);
+        } finally {
+            simpleDb.rollback();
+        }
+    }
+
+    @Test
+    @DisplayName("executeBatch")
+    public void t024() {
+        Sql sql = simpleDb.genSql();
+        sql.append("INSERT INTO article")
+                .append("SET createdDate = NOW()")
+                .append(", modifiedDate = NOW()")
+                .append(", title = ?")
+                .append(", body = ?")
+                .batchSize(4);
+
+        IntStream.rangeClosed(1, 10).forEach(no -> sql.addBatch("배치 제목%d".formatted(no), "배치 내용%d".formatted(no)));
+
+        BatchResult result = sql.executeBatch();
+
+        // 생성된 주키는 추가한 순서대로 돌려받는다.
+        assertThat(result.getBatchCount()).isEqualTo(10);
+        assertThat(result.getTotalUpdateCount()).isEqualTo(10);
+        assertThat(result.getGeneratedIds()).hasSize(10);
+        assertThat(result.getGeneratedIds()[0]).isEqualTo(7L);
+        assertThat(result.getGeneratedIds()[9]).isEqualTo(16L);
+
+        // 실행한 묶음은 비워지므로 같은 Sql 로 다음 배치를 쌓을 수 있다.
+        assertThatThrownBy(sql::executeBatch).isInstanceOf(IllegalStateException.class);
+        BatchResult next = sql.addBatch("배치 제목11", "배치 내용11").executeBatch();
+        assertThat(next.getGeneratedIds()).containsExactly(17L);
+    }
+
+    @Test
+    @DisplayName("selectRows, shared schema")
+    public void t025() {
+        Sql sql = simpleDb.genSql();
+        sql.append("SELECT id, title FROM article ORDER BY id ASC LIMIT 2");
+        List<Map<String, Object>> articleRows = sql.selectRows();
+
+        Row first = (Row) articleRows.get(0);
+        Row second = (Row) articleRows.get(1);
+
+        // 같은 결과 집합의 행들은 컬럼 구성을 공유하고, 값은 인덱스로도 읽을 수 있다.
+        assertThat(first.getSchema()).isSameAs(second.getSchema());
+        assertThat(second.get(0)).isEqualTo(2L);
+        assertThat(first.keySet()).containsExactly("id", "title");
+        assertThatThrownBy(() -> first.put("title", "제목 new"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("async, allOf")
+    public void t026() {
+        CompletableFuture<Article> article = simpleDb.genSql()
+                .append("SELECT * FROM article WHERE id = ?", 1)
+                .selectRowAsync(Article.class);
+
+        // 서로 독립적인 조회를 동시에 실행하고 입력 순서대로 결과를 받는다.
+        List<Long> counts = simpleDb.<Long>allOf(
+                () -> simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong(),
+                () -> simpleDb.genSql().append("SELECT COUNT(*) FROM article WHERE isBlind = ?", true).selectLong(),
+                () -> simpleDb.genSql().append("SELECT COUNT(*) FROM article WHERE isBlind = ?", false).selectLong()
+        ).join();
+
+        assertThat(article.join().getTitle()).isEqualTo("제목1");
+        assertThat(counts).containsExactly(6L, 3L, 3L);
+
+        // 허가가 다 쓰였을 때 비동기 작업 안에서 다시 제출한 작업은 그 자리에서 실행되어 허가를 기다리며 멈추지 않는다.
+        List<CompletableFuture<Long>> nested = IntStream.range(0, 20)
+                .mapToObj(i -> simpleDb.async(() -> simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLongAsync().join()))
+                .toList();
+        assertThat(CompletableFuture.allOf(nested.toArray(CompletableFuture[]::new)))
+                .succeedsWithin(Duration.ofSeconds(10));
+
+        // 허가가 남아 있으면 안에서 제출한 작업들도 동시에 실행된다.
+        CountDownLatch together = new CountDownLatch(3);
+        boolean overlapped = simpleDb.async(() -> IntStream.range(0, 3)
+                .mapToObj(i -> simpleDb.async(() -> {
+                    together.countDown();
+                    try {
+                        return together.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }))
+                .toList()
+                .stream()
+                .allMatch(CompletableFuture::join)).join();
+        assertThat(overlapped).isTrue();
+    }
+
+    @Test
+    @DisplayName("query cache, invalidate on write")
+    public void t027() {
+        QueryCache queryCache = simpleDb.enableQueryCache(100, Duration.ofMinutes(1));
+        try {
+            long count1 = simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong();
+            long count2 = simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong();
+
+            assertThat(count2).isEqualTo(count1);
+            assertThat(queryCache.getHits()).isEqualTo(1);
+
+            simpleDb.genSql()
+                    .append("INSERT INTO article")
+                    .append("SET createdDate = NOW()")
+                    .append(", modifiedDate = NOW()")
+                    .append(", title = ?", "제목 new")
+                    .append(", body = ?", "내용 new")
+                    .insert();
+
+            // article 에 쓰기가 일어나면 캐시된 결과는 무효화된다.
+            long count3 = simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong();
+
+            assertThat(count3).isEqualTo(count1 + 1);
+            assertThat(queryCache.getInvalidations()).isEqualTo(1);
+
+            // 쉼표로 이어진 테이블도 모두 무효화 대상이고, 테이블이 없는 조회는 캐시하지 않는다.
+            assertThat(SqlTables.of("SELECT * FROM article a, member m WHERE a.id = m.id")).containsExactly("article", "member");
+            simpleDb.genSql().append("SELECT 1 + 1").selectLong();
+            simpleDb.genSql().append("SELECT 1 + 1").selectLong();
+            assertThat(queryCache.getHits()).isEqualTo(1);
+        } finally {
+            simpleDb.disableQueryCache();
+        }
+    }
+
+    @Test
+    @DisplayName("query metrics, per shape")
+    public void t028() throws Exception {
+        QueryMetrics queryMetrics = simpleDb.enableQueryMetrics("t028");
+        try {
+            simpleDb.genSql().append("SELECT * FROM article WHERE id IN (1, 2, 3)").selectRows();
+            simpleDb.genSql().append("SELECT * FROM article WHERE id IN (4, 5)").selectRows();
+            simpleDb.genSql().append("UPDATE article SET title = ? WHERE id <= ?", "제목 new", 2).update();
+
+            // 리터럴과 IN 목록 길이가 달라도 같은 모양으로 모인다.
+            StatementMetrics select = queryMetrics.get("SELECT * FROM article WHERE id IN (7)");
+            assertThat(select.getShape()).isEqualTo("SELECT * FROM article WHERE id IN (?+)");
+            assertThat(select.getExecutions()).isEqualTo(2);
+            assertThat(select.getRowsReturned()).isEqualTo(5);
+            assertThat(select.getTotal().getP99()).isGreaterThan(0);
+
+            StatementMetrics update = queryMetrics.get("UPDATE article SET title = ? WHERE id <= ?");
+            assertThat(update.getRowsAffected()).isEqualTo(2);
+
+            // 같은 값을 JMX 로도 읽을 수 있다.
+            ObjectName objectName = new ObjectName("com.ll.database:type=QueryMetrics,name=\"t028\"");
+            Object totalExecutions = ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(objectName, "TotalExecutions");
+            assertThat(totalExecutions).isEqualTo(3L);
+        } finally {
+            simpleDb.disableQueryMetrics();
+        }
+    }
+
+    @Test
+    @DisplayName("query log, async and masked")
+    public void t029() {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        DevLogger devLogger = simpleDb.getDevLogger();
+        QueryLog original = devLogger.getQueryLog();
+        QueryLog queryLog = new QueryLog(QueryLogConfig.builder()
+                .paramMasker(ParamMasker.columns("body"))
+                .sink(lines::add)
+                .build());
+        devLogger.setQueryLog(queryLog);
+        try {
+            simpleDb.genSql()
+                    .append("SELECT COUNT(*) FROM article WHERE title = ? AND `body` = ?", "제목1", "내용1")
+                    .selectLong();
+
+            // 출력은 기록 쓰레드가 하고, body 컬럼에 묶인 값은 가려진다.
+            assertThat(queryLog.flush(Duration.ofSeconds(5))).isTrue();
+            assertThat(lines).anySatisfy(line -> assertThat(line)
+                    .contains("SELECT COUNT(*) FROM article")
+                    .contains("[제목1, ****]"));
+            assertThat(queryLog.getDropped()).isZero();
+        } finally {
+            devLogger.setQueryLog(original);
+            queryLog.close();
+        }
+    }
+
+    @Test
+    @DisplayName("slow query log, explain and log file")
+    public void t030() throws Exception {
+        Path logFile = Files.createTempFile("slow-query", ".log");
+        SlowQueryLog slowQueryLog = simpleDb.enableSlowQueryLog(SlowQueryLogConfig.builder()
+                .threshold(Duration.ZERO)
+                .topN(2)
+                .explain(true)
+                .logFile(logFile)
+                .build());
+        try {
+            simpleDb.genSql().append("SELECT * FROM article WHERE id = ?", 1).selectRow(Article.class);
+            simpleDb.genSql().append("SELECT * FROM article WHERE id > ?", 0).selectRows(Article.class);
+            simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong();
+            assertThat(slowQueryLog.flush(Duration.ofSeconds(5))).isTrue();
+
+            // 가장 느린 topN 건만 남고, 호출 위치와 실행 계획이 함께 기록된다.
+            List<SlowQuery> slowest = slowQueryLog.getSlowest();
+            assertThat(slowQueryLog.getRecorded()).isEqualTo(3);
+            assertThat(slowest).hasSize(2);
+            assertThat(slowest.get(0).getDurationNanos()).isGreaterThanOrEqualTo(slowest.get(1).getDurationNanos());
+            assertThat(slowest).allSatisfy(slowQuery -> {
+                assertThat(slowQuery.getCallSite()).contains("SimpleDbTest.t030");
+                assertThat(slowQuery.getExplain()).isNotEmpty();
+            });
+            assertThat(Files.readAllLines(logFile)).hasSize(3)
+                    .allSatisfy(line -> assertThat(line).startsWith("{").contains("\"callSite\""));
+        } finally {
+            simpleDb.disableSlowQueryLog();
+            Files.deleteIfExists(logFile);
+        }
+    }
+
+    @Test
+    @DisplayName("read replicas, routing and ejection")
+    public void t031() {
+        ConnectionManager primary = simpleDb.getConnectionManager();
+        ConnectionManager replica = new ConnectionManager(primary.getUrl(), primary.getUser(), primary.getPassword());
+        ConnectionManager deadReplica = new ConnectionManager("jdbc:invalid:replica", "none", "none");
+
+        try (SimpleDb replicatedDb = new SimpleDb(
+                new ConnectionManager(primary.getUrl(), primary.getUser(), primary.getPassword()),
+                List.of(deadReplica, replica),
+                ReplicaConfig.defaults(),
+                new DevLogger(false)
+        )) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(replicatedDb.genSql().append("SELECT COUNT(*) FROM article").selectLong()).isEqualTo(6);
+            }
+
+            // 연결되지 않는 복제본은 빠지고, 읽기는 남은 복제본이 받는다.
+            List<ReplicaStatus> statuses = replicatedDb.getReplicaStatuses();
+            assertThat(statuses.get(0).isAvailable()).isFalse();
+            assertThat(statuses.get(1).getReads()).isEqualTo(4);
+            assertThat(replicatedDb.getReplicaFallbacks()).isZero();
+
+            // 트랜잭션 안의 조회는 primary 로 간다.
+            replicatedDb.startTransaction();
+            replicatedDb.genSql().append("SELECT COUNT(*) FROM article").selectLong();
+            replicatedDb.rollback();
+            assertThat(replicatedDb.getReplicaStatuses().get(1).getReads()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    @DisplayName("compiled query, named and positional parameters")
+    public void t032() {
+        Query findById = simpleDb.compile("SELECT * FROM article WHERE id = :id");
+        Query countByBlind = simpleDb.compile("SELECT COUNT(*) FROM article WHERE isBlind = ? AND title <> '?'");
+
+        assertThat(findById.getSql()).isEqualTo("SELECT * FROM article WHERE id = ?");
+        assertThat(countByBlind.getParameterCount()).isEqualTo(1);
+
+        // 주석 안의 ? 와 :name 은 파라미터가 아니다.
+        Query commented = simpleDb.compile("""
+                SELECT id /* :ignored ? */
+                FROM article
+                WHERE id = ? -- id?
+                # :ignored
+                AND isBlind = ?
+                """);
+        assertThat(commented.getParameterCount()).isEqualTo(2);
+        assertThat(commented.selectLong(2, false)).isEqualTo(2);
+
+        // 같은 Query 를 여러 쓰레드가 다른 인자로 동시에 실행한다.
+        List<CompletableFuture<String>> titles = IntStream.rangeClosed(1, 6)
+                .mapToObj(id -> simpleDb.async(() -> findById.selectRow(Article.class, findById.args(Map.of("id", (long) id))).getTitle()))
+                .toList();
+
+        assertThat(titles.stream().map(CompletableFuture::join))
+                .containsExactly("제목1", "제목2", "제목3", "제목4", "제목5", "제목6");
+        assertThat(countByBlind.selectLong(false)).isEqualTo(3);
+        assertThatThrownBy(() -> countByBlind.selectLong())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("appendIn, padded buckets and chunked ORDER BY FIELD")
+    public void t033() {
+        // 목록 길이가 달라도 같은 크기로 채워 같은 SQL 이 된다.
+        String sql3 = simpleDb.genSql().append("SELECT id FROM article").appendIn("WHERE id IN (?)", 1, 2, 3).buildSql();
+        String sql4 = simpleDb.genSql().append("SELECT id FROM article").appendIn("WHERE id IN (?)", 1, 2, 3, 4).buildSql();
+        assertThat(sql3).isEqualTo(sql4).endsWith("IN (?, ?, ?, ?)");
+
+        // 나눠 실행해도 ORDER BY FIELD 의 순서대로 결과가 이어진다.
+        Long[] ids = new Long[]{6L, 2L, 4L, 1L, 5L};
+        List<Long> foundIds = simpleDb.genSql()
+                .inListChunkSize(2)
+                .append("SELECT id")
+                .append("FROM article")
+                .appendIn("WHERE id IN (?)", ids)
+                .appendIn("ORDER BY FIELD (id, ?)", ids)
+                .selectLongs();
+
+        assertThat(foundIds).containsExactly(ids);
+
+        // 중복 값은 한 조각에만 들어가 같은 행이 두 번 나오지 않는다.
+        List<Long> dedupedIds = simpleDb.genSql()
+                .inListChunkSize(2)
+                .append("SELECT id FROM article")
+                .appendIn("WHERE id IN (?)", 1, 2, 1, 3, 2)
+                .selectLongs();
+        assertThat(dedupedIds).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        // NOT IN 과 OR 조건은 나누지 않고 문장 하나로 실행한다.
+        List<Long> excludedIds = simpleDb.genSql()
+                .inListChunkSize(2)
+                .append("SELECT id FROM article")
+                .appendIn("WHERE id NOT IN (?)", 1, 2, 3, 4, 5)
+                .selectLongs();
+        assertThat(excludedIds).containsExactly(6L);
+
+        List<Long> orIds = simpleDb.genSql()
+                .inListChunkSize(2)
+                .append("SELECT id FROM article")
+                .appendIn("WHERE id IN (?)", 1, 2, 3, 4, 5)
+                .append("OR title = ?", "제목1")
+                .selectLongs();
+        assertThat(orIds).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    @DisplayName("keysetScan, pages and prefetch")
+    public void t034() {
+        KeysetScan<Article> scan = simpleDb.keysetScan(Article.class, "id", "SELECT * FROM article WHERE isBlind = ?", false)
+                .pageSize(2)
+                .prefetch(true);
+
+        List<List<Long>> pages = new ArrayList<>();
+        for (List<Article> page : scan) {
+            pages.add(page.stream().map(Article::getId).toList());
+        }
+
+        assertThat(pages).containsExactly(List.of(1L, 2L), List.of(3L));
+
+        List<Long> ids = simpleDb.keysetScan("id", "SELECT id, title FROM article")
+                .pageSize(4)
+                .stream()
+                .map(row -> (Long) row.get("id"))
+                .toList();
+
+        assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+
+        // 키 조건을 안전하게 붙일 수 없는 모양의 쿼리는 만들 때 거절한다.
+        assertThatThrownBy(() -> simpleDb.keysetScan("id", "SELECT isBlind AS id, COUNT(*) FROM article GROUP BY isBlind"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> simpleDb.keysetScan("id", "SELECT * FROM article WHERE id IN (SELECT id FROM article WHERE isBlind = ?)", true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("parallelScan, ordered and unordered")
+    public void t035() {
+        ParallelScan<Article> scan = simpleDb.parallelScan(Article.class, "article", "id")
+                .where("isBlind = ?", false)
+                .parallelism(2)
+                .partitions(3)
+                .fetchSize(100);
+
+        // 정렬 스트림은 범위를 나눠 읽어도 키 순서를 지킨다.
+        assertThat(scan.stream().map(Article::getId)).containsExactly(1L, 2L, 3L);
+
+        List<Long> ids = new CopyOnWriteArrayList<>();
+        scan.forEach(article -> ids.add(article.getId()));
+        assertThat(ids).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        try (Stream<Map<String, Object>> rows = simpleDb.parallelScan("article", "id").fetchSize(100).unorderedStream()) {
+            assertThat(rows.map(row -> (Long) row.get("id"))).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L);
+        }
+    }
+
+    @Test
+    @DisplayName("bulkLoad, LOAD DATA row encoding")
+    public void t036() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[]{1L, "a\tb\nc\\d", LocalDateTime.of(2024, 1, 2, 3, 4, 5), true},
+                new Object[]{2L, null, LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_000_000), false}
+        );
+
+        LoadDataEncoder encoder = new LoadDataEncoder(rows.iterator(), 4);
+        String encoded = new String(encoder.readAllBytes(), StandardCharsets.UTF_8);
+
+        assertThat(encoded).isEqualTo(
+                "1\ta\\tb\\nc\\\\d\t2024-01-02 03:04:05\t1\n"
+                        + "2\t\\N\t2024-01-02 03:04:05.123000\t0\n");
+        assertThat(encoder.rowCount()).isEqualTo(2);
+
+        // BIT 컬럼은 사용자 변수로 받아 숫자로 바꾼다.
+        String sql = BulkLoader.loadSql("article", List.of("id", "title", "isBlind"), Set.of("isblind"));
+        assertThat(sql).endsWith("(id, title, @simpledb_bit2) SET isBlind = CAST(@simpledb_bit2 AS UNSIGNED)");
+
+        // 커넥션 하나로 적재하고, 전송 중에 실패한 커넥션은 풀에 돌아가지 않는다.
+        SimpleDb bulkDb = SimpleDb.builder()
+                .host("localhost")
+                .database("simpleDb__test")
+                .user("root")
+                .password("lldj123414")
+                .poolConfig(PoolConfig.builder().minSize(0).maxSize(1).build())
+                .profile(JdbcProfile.BULK_LOAD)
+                .build();
+        try (bulkDb) {
+            List<String> columns = List.of("createdDate", "modifiedDate", "title", "`body`", "isBlind");
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            BulkLoadResult result = bulkDb.bulkLoad("article", columns, Stream.of(
+                    new Object[]{now, now, "적재1", "내용\t1", true},
+                    new Object[]{now, now, "적재2", "내용\n2", false}
+            ));
+
+            assertThat(result.getRowsSent()).isEqualTo(2);
+            assertThat(result.getRowsLoaded()).isEqualTo(2);
+            assertThat(bulkDb.genSql().append("SELECT `body` FROM article WHERE title = ?", "적재2").selectString())
+                    .isEqualTo("내용\n2");
+            assertThat(bulkDb.genSql().append("SELECT isBlind FROM article WHERE title = ?", "적재1").selectBoolean())
+                    .isTrue();
+
+            assertThatThrownBy(() -> bulkDb.bulkLoad("article", columns, Stream.of(
+                    new Object[]{now, now, "적재3", "내용", false},
+                    new Object[]{now, now, "적재4"}
+            ))).isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(bulkDb.genSql().append("SELECT title FROM article WHERE id = ?", 1).selectString())
+                    .isEqualTo("제목1");
+        }
+    }
+
+    @Test
+    @DisplayName("insertCoalescer, group commit")
+    public void t037() {
+        List<CompletableFuture<Long>> futures;
+        InsertCoalescer coalescer = simpleDb.insertCoalescer("article",
+                List.of("createdDate", "modifiedDate", "title", "`body`", "isBlind"),
+                InsertCoalescerConfig.builder().maxBatchRows(16).maxDelay(Duration.ofMillis(20)).build());
+        try (coalescer; ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            LocalDateTime now = LocalDateTime.now();
+            futures = IntStream.rangeClosed(1, 40)
+                    .mapToObj(no -> CompletableFuture.supplyAsync(
+                            () -> coalescer.submit(now, now, "묶음%d".formatted(no), "내용", false), executor))
+                    .map(CompletableFuture::join)
+                    .toList();
+
+            List<Long> ids = futures.stream().map(CompletableFuture::join).toList();
+            assertThat(ids).doesNotHaveDuplicates().allMatch(id -> id > 6);
+        }
+
+        // 행마다 커밋하지 않고 묶어서 커밋한다.
+        assertThat(coalescer.getWritten()).isEqualTo(40);
+        assertThat(coalescer.getFlushes()).isLessThan(40);
+
+        long id = futures.get(0).join();
+        String title = simpleDb.genSql().append("SELECT title FROM article WHERE id = ?", id).selectString();
+        assertThat(title).isEqualTo("묶음1");
+        assertThat(coalescer.submit(LocalDateTime.now(), LocalDateTime.now(), "닫힘", "내용", false)).isCompletedExceptionally();
+
+        // 커넥션을 못 빌리면 행마다 다시 시도하지 않고 묶음 전체가 한 번에 실패한다.
+        ConnectionManager primary = simpleDb.getConnectionManager();
+        SimpleDb starvedDb = new SimpleDb(new ConnectionManager(primary.getUrl(), primary.getUser(), primary.getPassword(), primary.getDriverProperties(),
+                PoolConfig.builder().minSize(0).maxSize(1).borrowTimeout(Duration.ofMillis(200)).build()), new DevLogger(false));
+        try (starvedDb; Connection held = starvedDb.getConnectionManager().getConnection()) {
+            InsertCoalescer starved = starvedDb.insertCoalescer("article",
+                    List.of("createdDate", "modifiedDate", "title", "`body`", "isBlind"),
+                    InsertCoalescerConfig.builder().maxBatchRows(16).maxDelay(Duration.ofMillis(100)).build());
+            try (starved) {
+                LocalDateTime now = LocalDateTime.now();
+                List<CompletableFuture<Long>> failures = IntStream.rangeClosed(1, 10)
+                        .mapToObj(no -> starved.submit(now, now, "실패%d".formatted(no), "내용", false))
+                        .toList();
+
+                assertThat(CompletableFuture.allOf(failures.toArray(CompletableFuture[]::new)))
+                        .failsWithin(Duration.ofSeconds(1));
+                assertThat(failures).allMatch(CompletableFuture::isCompletedExceptionally);
+                assertThat(starved.getFailed()).isEqualTo(10);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("entityCache, read-through and invalidation")
+    public void t038() {
+        EntityCache cache = simpleDb.enableEntityCache(100).register(Article.class, "article");
+        try {
+            Article first = simpleDb.genSql().append("SELECT * FROM article WHERE id = ?", 1).selectRow(Article.class);
+            Article second = simpleDb.genSql().append("SELECT *").append("FROM article").append("WHERE id = ?", 1L).selectRow(Article.class);
+            assertThat(second).isSameAs(first);
+            assertThat(cache.getHits()).isEqualTo(1);
+            assertThat(cache.getMisses()).isEqualTo(1);
+
+            // id 로 수정하면 그 엔티티만 무효화된다.
+            simpleDb.genSql().append("SELECT * FROM article WHERE id = ?", 2).selectRow(Article.class);
+            simpleDb.genSql().append("UPDATE article SET title = ? WHERE id = ?", "새 제목", 1).update();
+            assertThat(cache.size()).isEqualTo(1);
+            assertThat(simpleDb.genSql().append("SELECT * FROM article WHERE id = ?", 1).selectRow(Article.class).getTitle())
+                    .isEqualTo("새 제목");
+
+            // 트랜잭션 안의 조회는 캐시를 거치지 않고, 무효화는 커밋할 때 한다.
+            simpleDb.startTransaction();
+            simpleDb.genSql().append("UPDATE article SET title = ? WHERE id = ?", "트랜잭션", 1).update();
+            assertThat(simpleDb.genSql().append("SELECT * FROM article WHERE id = ?", 1).selectRow(Article.class).getTitle())
+                    .isEqualTo("트랜잭션");
+            assertThat(cache.size()).isEqualTo(2);
+            simpleDb.commit();
+            assertThat(cache.size()).isEqualTo(1);
+
+            // id 로 특정할 수 없는 쓰기는 클래스 전체를 무효화한다.
+            simpleDb.genSql().append("UPDATE article SET isBlind = ?", false).update();
+            assertThat(cache.size()).isZero();
+            assertThat(cache.getInvalidations()).isEqualTo(3);
+        } finally {
+            simpleDb.disableEntityCache();
+        }
+    }
+
+    @Test
+    @DisplayName("selectLongArray, selectIntArray, selectDoubleArray")
+    public void t039() {
+        long[] ids = simpleDb.genSql().append("SELECT id FROM article ORDER BY id ASC").selectLongArray();
+        assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+
+        assertThat(simpleDb.genSql().append("SELECT id FROM article WHERE isBlind = ?", true).selectLongStream().sum())
+                .isEqualTo(15L);
+        assertThat(simpleDb.genSql().append("SELECT id FROM article WHERE id > ?", 100).selectLongArray()).isEmpty();
+
+        int[] chunked = simpleDb.genSql()
+                .append("SELECT id FROM article WHERE")
+                .appendIn("id IN (?)", 1, 2, 3, 4, 5)
+                .inListChunkSize(2)
+                .selectIntArray();
+        assertThat(chunked).containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+
+        double[] halves = simpleDb.compile("SELECT id / 2.0 FROM article WHERE id <= :max ORDER BY id").selectDoubleArray(2);
+        assertThat(halves).containsExactly(0.5, 1.0);
+    }
+
+    @Test
+    @DisplayName("builder, JDBC profile and options")
+    public void t040() {
+        SimpleDb analytics = SimpleDb.builder()
+                .host("db.internal")
+                .port(3307)
+                .database("simpleDb__test")
+                .user("reader")
+                .password("secret")
+                .poolConfig(PoolConfig.builder().minSize(0).maxSize(2).build())
+                .profile(JdbcProfile.ANALYTICS_STREAMING)
+                .jdbcOptions(options -> options.defaultFetchSize(500).socketTimeout(Duration.ofMinutes(30)))
+                .replica("replica.internal")
+                .build();
+        try (analytics) {
+            // 접속 없이도 고른 설정을 확인할 수 있다.
+            ConnectionManager connectionManager = analytics.getConnectionManager();
+            assertThat(connectionManager.getUrl()).isEqualTo("jdbc:mysql://db.internal:3307/simpleDb__test");
+            assertThat(connectionManager.getDriverProperties())
+                    .containsEntry("useCursorFetch", "true")
+                    .containsEntry("defaultFetchSize", "500")
+                    .containsEntry("socketTimeout", "1800000")
+                    .containsEntry("netTimeoutForStreamingResults", "3600")
+                    .doesNotContainKeys("user", "password");
+            assertThat(analytics.getJdbcProfile()).isEqualTo(JdbcProfile.ANALYTICS_STREAMING);
+            assertThat(analytics.getJdbcOptions().getDefaultFetchSize()).isEqualTo(500);
+            assertThat(analytics.getReplicaStatuses()).extracting(ReplicaStatus::getUrl)
+                    .containsExactly("jdbc:mysql://replica.internal:3306/simpleDb__test");
+        }
+
+        assertThat(JdbcProfile.BULK_LOAD.options().toProperties()).containsEntry("allowLoadLocalInfile", "true");
+        assertThatThrownBy(() -> SimpleDb.builder().build()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("inTransaction, retry on lock conflict")
+    public void t041() {
+        TransactionStats stats = simpleDb.getTransactionStats();
+        long retriesBefore = stats.getDeadlockRetries();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 데드락으로 두 번 실패하면 롤백하고 처음부터 다시 실행한다.
+        long id = simpleDb.inTransaction(tx -> {
+            long newId = tx.genSql()
+                    .append("INSERT INTO article SET createdDate = NOW(), modifiedDate = NOW(), title = ?, `body` = ?", "재시도", "내용")
+                    .insert();
+            if (attempts.incrementAndGet() < 3) {
+                throw new RuntimeException(new SQLException("Deadlock found", "40001", 1213));
+            }
+            return newId;
+        });
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(stats.getDeadlockRetries() - retriesBefore).isEqualTo(2);
+        assertThat(simpleDb.isInTransaction()).isFalse();
+        assertThat(simpleDb.genSql().append("SELECT COUNT(*) FROM article WHERE title = ?", "재시도").selectLong()).isEqualTo(1);
+        assertThat(simpleDb.genSql().append("SELECT title FROM article WHERE id = ?", id).selectString()).isEqualTo("재시도");
+
+        // 잠금 충돌이 아닌 오류는 다시 시도하지 않는다.
+        AtomicInteger failures = new AtomicInteger();
+        assertThatThrownBy(() -> simpleDb.inTransaction(tx -> {
+            failures.incrementAndGet();
+            tx.genSql().append("DELETE FROM article").delete();
+            throw new IllegalStateException("업무 오류");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(failures.get()).isEqualTo(1);
+        assertThat(simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong()).isEqualTo(7);
+
+        // 시도 횟수를 다 쓰면 마지막 오류를 그대로 던진다.
+        long exhaustedBefore = stats.getExhausted();
+        assertThatThrownBy(() -> simpleDb.inTransaction(RetryPolicy.builder().maxAttempts(2).build(), tx -> {
+            throw new RuntimeException(new SQLException("Lock wait timeout exceeded", "HY000", 1205));
+        })).hasRootCauseMessage("Lock wait timeout exceeded");
+        assertThat(stats.getExhausted() - exhaustedBefore).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("query timeout, deadline and cancel")
+    public void t042() throws Exception {
+        // 문장별 시간 제한은 1 초 미만이어도 서버의 실행을 끊는다.
+        long startedAt = System.nanoTime();
+        assertThatThrownBy(() -> simpleDb.genSql().append("SELECT SLEEP(5)").timeout(Duration.ofMillis(200)).selectLong())
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(3));
+
+        // 요청 기한이 남은 시간만큼만 실행하게 한다.
+        assertThatThrownBy(() -> Deadline.within(Duration.ofMillis(200),
+                () -> simpleDb.genSql().append("SELECT SLEEP(5)").timeout(Duration.ofSeconds(30)).selectLong()))
+                .isInstanceOf(QueryTimeoutException.class);
+        Deadline expired = Deadline.after(Duration.ZERO);
+        assertThatThrownBy(() -> expired.call(() -> simpleDb.genSql().append("SELECT 1").selectLong()))
+                .isInstanceOf(QueryTimeoutException.class)
+                .hasMessageContaining("Deadline exceeded");
+
+        // 다른 쓰레드에서 취소할 수 있다.
+        Sql sleeping = simpleDb.genSql().append("SELECT SLEEP(5)");
+        CompletableFuture<Long> future = CompletableFuture.supplyAsync(sleeping::selectLong);
+        Thread.sleep(200);
+        sleeping.cancel();
+        assertThatThrownBy(() -> future.get(3, TimeUnit.SECONDS)).hasCauseInstanceOf(QueryTimeoutException.class);
+
+        // 끝난 문장을 늦게 취소해도 다음 사용자가 같은 커넥션에서 실행하는 문장은 끊기지 않는다.
+        Sql finished = simpleDb.genSql().append("SELECT 1");
+        finished.selectLong();
+        finished.cancel();
+        assertThat(simpleDb.genSql().append("SELECT SLEEP(0.2)").selectLong()).isZero();
+
+        // 읽고 있던 커서를 취소해도 QueryTimeoutException 을 받는다.
+        Sql streaming = simpleDb.genSql()
+                .append("SELECT id, SLEEP(0.5) FROM article ORDER BY id ASC")
+                .fetchSize(Integer.MIN_VALUE);
+        try (ResultCursor<Long> cursor = streaming.selectCursor(rs -> rs.getLong("id"))) {
+            assertThat(cursor.next()).isEqualTo(1L);
+            streaming.cancel();
+            assertThatThrownBy(() -> cursor.forEachRemaining(id -> {}))
+                    .isInstanceOf(QueryTimeoutException.class)
+                    .hasMessageContaining("cancelled");
+        }
+
+        // SimpleDb 의 기본 시간 제한
+        simpleDb.setDefaultQueryTimeout(Duration.ofMillis(200));
+        try {
+            assertThatThrownBy(() -> simpleDb.genSql().append("SELECT SLEEP(5)").selectLong())
+                    .isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            simpleDb.setDefaultQueryTimeout(null);
+        }
+
+        // 끊긴 뒤에도 커넥션은 계속 쓸 수 있다.
+        assertThat(simpleDb.genSql().append("SELECT COUNT(*) FROM article").selectLong()).isEqualTo(6);
+    }
 }
\ No newline at end of file